@@ -19,6 +19,7 @@ import indi.crawler.filter.BlockingWaitFilter;
 import indi.crawler.monitor.CloseableMonitor;
 import indi.crawler.processor.Processor;
 import indi.crawler.processor.http.LogSpeedProcessor;
+import indi.crawler.recoder.Recorder;
 import indi.crawler.task.CrawlerController;
 import indi.crawler.task.def.SpecificTask;
 import indi.crawler.task.def.TaskDef;
@@ -46,6 +47,10 @@ public class CrawlerJob {
     @Getter
     private String redisURI;
     @Getter
+    private boolean redisReliable;// 是否使用可靠模式的redis爬虫池
+    @Getter
+    private String redisStreamGroup;// 不为空时使用基于Redis Streams的爬虫池，值为消费者组名
+    @Getter
     private Path tmpFolder;// 临时文件夹路径
     @Getter
     private Runnable closeCallbackFun;// 结束时的回调（为空则啥也不做）
@@ -55,6 +60,10 @@ public class CrawlerJob {
     private List<Processor> customProcessors;// 用户配置的工程级别拦截器
     @Getter
     private int threadCount = DEFAULT_THREAD_POOL_SIZE;
+    @Getter
+    private Recorder recorder;// 任务记录器，为空时使用默认的记录器
+    @Getter
+    private String name;// 爬虫工程名，用于区分共用同一个Redis的爬虫工程的数据（如任务记录）
     
     /**
      * 初始化值域
@@ -84,7 +93,7 @@ public class CrawlerJob {
             throw new IllegalArgumentException("Duplicate task name " + name);
         }
         int pri = taskDef.getPriority();
-        // 为了能够让 TreeMap 准确一类一键，必须使每个Task的都有不一样的比较值
+        // 使每个任务定义都有不一样的比较值，以保证任务池中任务定义间的优先级顺序确定
         
         while (priorityCache.contains(pri)) {
             if (!descPriority) {
@@ -109,12 +118,21 @@ public class CrawlerJob {
         log.info("已注册爬虫任务定义 {}", taskDef.toString());
         
         // final
+        taskDef.setSlot(taskDefs.size());
         taskDefs.put(name, taskDef);
     }
 
     public synchronized TaskDef getTaskDef(String name) {
         return taskDefs.get(name);
     }
+    
+    /**
+     * @return 所有已注册的任务定义的副本
+     * @since 2026.10.18
+     */
+    public synchronized List<TaskDef> getTaskDefs() {
+        return new ArrayList<>(taskDefs.values());
+    }
 
     /**
      * 开始配置任务；{@link CrawlerJob#withASCPriorityOrder()}
@@ -239,6 +257,19 @@ public class CrawlerJob {
         return this;
     }
     
+    /**
+     * 启用全局限流，作用于所有任务
+     * 
+     * @param permitsPerSecond 每秒执行次数
+     * @param burst 允许突发的次数
+     * @return
+     * @since 2026.10.18
+     */
+    public CrawlerJob withGlobalRateLimit(double permitsPerSecond, int burst) {
+        blockingWaitFilter.setGlobalRateLimit(permitsPerSecond, burst);
+        return this;
+    }
+    
     /**
      * 使用redis消息队列作为爬虫任务池。该方法仅设置redisURI，不会直接启用redis爬虫池
      * 
@@ -250,6 +281,68 @@ public class CrawlerJob {
         return this;
     }
     
+    /**
+     * 使用redis消息队列作为爬虫任务池，并指定是否启用可靠模式
+     * 
+     * <p>可靠模式下，取出的任务会记录在Redis中直至完成，节点宕机后由其他节点在出租期限过后重新执行，适合多个节点共用一个Redis
+     * 
+     * @param redisURI
+     * @param reliable 是否启用可靠模式
+     * @return
+     * @since 2026.10.18
+     */
+    public CrawlerJob withRedisMQTaskPool(String redisURI, boolean reliable) {
+        this.redisURI = redisURI;
+        this.redisReliable = reliable;
+        return this;
+    }
+    
+    /**
+     * 使用基于Redis Streams消费者组的爬虫任务池。多个节点使用同一个消费者组即可共同完成同一个爬虫工程
+     * 
+     * @param redisURI
+     * @param group 消费者组名，每个爬虫工程一个
+     * @return
+     * @since 2026.10.18
+     */
+    public CrawlerJob withRedisStreamTaskPool(String redisURI, String group) {
+        this.redisURI = redisURI;
+        this.redisStreamGroup = group;
+        return this;
+    }
+    
+    /**
+     * 指定任务记录器，用于检查需要检查记录的任务（见 {@link TaskDef.Builder#withCheckRecord()}）是否重复
+     * 
+     * <p>本地内存的任务池默认使用精确记录所有任务指纹的 {@link indi.crawler.recoder.CommonRecorder}，任务数很多时可改用
+     * {@link indi.crawler.recoder.BloomFilterRecorder}；基于Redis的任务池默认使用多个节点共用的
+     * {@link indi.crawler.recoder.RedisRecorder}
+     * 
+     * <p>默认的 {@link indi.crawler.recoder.RedisRecorder} 按工程名（见 {@link #withName(String)}，未设置时 Redis Streams
+     * 任务池使用消费者组名；Redis队列任务池则要求设置工程名，除非没有任务需要检查记录）保存记录，有效期为一天，每次添加记录时顺延。
+     * 需要永久保存或重新执行时，应指定相应有效期的记录器，或换用新的工程名
+     * 
+     * @param recorder
+     * @return
+     * @since 2026.10.18
+     */
+    public CrawlerJob withRecorder(Recorder recorder) {
+        this.recorder = recorder;
+        return this;
+    }
+    
+    /**
+     * 设置爬虫工程名，用于区分共用同一个Redis的爬虫工程的数据（如任务记录）
+     * 
+     * @param name
+     * @return
+     * @since 2026.10.18
+     */
+    public CrawlerJob withName(String name) {
+        this.name = name;
+        return this;
+    }
+    
     /**
      * 指定临时文件夹
      * 
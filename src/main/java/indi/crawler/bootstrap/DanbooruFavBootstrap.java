@@ -35,12 +35,12 @@ import org.jsoup.select.Elements;
 
 import com.google.common.collect.ImmutableSet;
 
+import indi.crawler.processor.http.RedisCacheProcessor;
 import indi.crawler.result.ResultHandler;
 import indi.crawler.result.ResultHelper;
 import indi.crawler.task.ResponseEntity.TYPE;
 import indi.crawler.task.Task;
 import indi.crawler.util.JobUtils;
-import indi.crawler.util.RedisUtils;
 import indi.data.Pair;
 import indi.exception.WrapperException;
 import indi.io.ClassPathProperties;
@@ -474,11 +474,8 @@ public class DanbooruFavBootstrap {
         if (StringUtils.isEmpty(link)) {
             log.error("详情页链接解析错误 url为空 !!! " + ctx.getUri() + "\n" + es);
             // remove cache
-            String redisCacheUri = ctx.getTaskDef().getRedisCacheUri();
             // 若使用了缓存，清除缓存的数据
-            if (redisCacheUri != null) {
-                RedisUtils.getAsyncCommands(redisCacheUri).hdel("LHCF-REQUEST", ctx.getIdentityKey()).get();
-            }
+            RedisCacheProcessor.evict(ctx);
             return;
         }
         // b. 获取作者信息
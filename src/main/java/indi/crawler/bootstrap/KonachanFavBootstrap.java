@@ -23,12 +23,12 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
+import indi.crawler.processor.http.RedisCacheProcessor;
 import indi.crawler.result.ResultHandler;
 import indi.crawler.result.ResultHelper;
 import indi.crawler.task.ResponseEntity.TYPE;
 import indi.crawler.task.Task;
 import indi.crawler.util.JobUtils;
-import indi.crawler.util.RedisUtils;
 import indi.exception.WrapperException;
 import indi.io.ClassPathProperties;
 import indi.io.FileUtils;
@@ -284,11 +284,8 @@ public class KonachanFavBootstrap {
         if (link == null) {
             log.error("详情页链接解析错误 url为空 !!! " + ctx.getUri() + "\n" + es);
             // remove cache
-            String redisCacheUri = ctx.getTaskDef().getRedisCacheUri();
             // 若使用了缓存，清除缓存的数据
-            if (redisCacheUri != null) {
-                RedisUtils.getAsyncCommands(redisCacheUri).hdel("LHCF-REQUEST", ctx.getIdentityKey()).get();
-            }
+            RedisCacheProcessor.evict(ctx);
             return;
         }
         // 判断文件是否存在
@@ -0,0 +1,181 @@
+package indi.crawler.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import indi.exception.WrapperException;
+
+/**
+ * 二进制编解码器的公共格式：魔数、版本、标志位，以及变长整数、可空字符串等字段的读写
+ *
+ * <p>魔数与Java序列化的首字节（0xAC）不同，可据此兼容旧的数据
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+final class CodecSupport {
+    static final byte MAGIC = 'L';
+    /** 标志位：正文经过deflate压缩 */
+    static final int FLAG_DEFLATE = 1;
+
+    private CodecSupport() {
+    }
+
+    /**
+     * 判断字节是否由本包的编解码器编码
+     */
+    static boolean isEncoded(byte[] bytes) {
+        return bytes != null && bytes.length >= 3 && bytes[0] == MAGIC;
+    }
+
+    /**
+     * 写入头部与正文；正文不小于压缩阈值时压缩
+     *
+     * @param compressThreshold 压缩阈值，bytes；小于0表示不压缩
+     */
+    static byte[] wrap(int version, byte[] body, int compressThreshold) {
+        boolean deflate = compressThreshold >= 0 && body.length >= compressThreshold;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + 3);
+        out.write(MAGIC);
+        out.write(version);
+        out.write(deflate ? FLAG_DEFLATE : 0);
+        try {
+            if (deflate) {
+                try (DeflaterOutputStream deflater = new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED))) {
+                    deflater.write(body);
+                }
+            } else {
+                out.write(body);
+            }
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 校验头部，并返回正文的输入流
+     *
+     * @param maxVersion 支持的最高版本
+     */
+    static DataInputStream unwrap(byte[] bytes, int maxVersion) {
+        if (!isEncoded(bytes)) {
+            throw new IllegalArgumentException("不是有效的编码");
+        }
+        int version = bytes[1];
+        if (version < 1 || version > maxVersion) {
+            throw new IllegalArgumentException("不支持的版本：" + version);
+        }
+        InputStream in = new ByteArrayInputStream(bytes, 3, bytes.length - 3);
+        if ((bytes[2] & FLAG_DEFLATE) != 0) {
+            in = new InflaterInputStream(in);
+        }
+        return new DataInputStream(in);
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        // zigzag，使小的负数也只占一个字节
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IOException("变长整数过长");
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IOException("变长整数过长");
+    }
+
+    /**
+     * 写入可空的字节数组，长度为-1表示null
+     */
+    static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            writeVarInt(out, -1);
+            return;
+        }
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    static void writeString(DataOutputStream out, String str) throws IOException {
+        writeBytes(out, str == null ? null : str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 无法预知结构的对象（如任务参数）仍使用Java序列化
+     */
+    static byte[] serialize(Serializable obj) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(obj);
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Serializable deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Serializable) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new WrapperException(e);
+        }
+    }
+}
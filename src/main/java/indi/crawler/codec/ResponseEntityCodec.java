@@ -0,0 +1,98 @@
+package indi.crawler.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import indi.crawler.task.ResponseEntity;
+import indi.crawler.util.RedisUtils;
+import indi.exception.WrapperException;
+
+/**
+ * 响应实体的二进制编解码器，取代Java序列化
+ *
+ * <p>格式（版本1）：类型、大小、内容；字符串为UTF-8，字节数组直接写入，临时文件只写入路径。
+ * 响应正文通常较大且易于压缩，默认在达到1KB时用deflate压缩
+ *
+ * <p>解码时兼容旧的Java序列化数据
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+public class ResponseEntityCodec implements ValueCodec<ResponseEntity> {
+    public static final ResponseEntityCodec DEFAULT = new ResponseEntityCodec(1024);
+
+    private static final int VERSION = 1;
+
+    private final int compressThreshold;
+
+    /**
+     * @param compressThreshold 正文达到该字节数时用deflate压缩；小于0表示不压缩
+     */
+    public ResponseEntityCodec(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] encode(ResponseEntity entity) {
+        ResponseEntity.TYPE type = entity.getType() == null ? ResponseEntity.TYPE.STRING : entity.getType();
+        Object content = entity.getContent();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type.ordinal());
+            CodecSupport.writeVarLong(out, entity.getSize() == null ? -1 : entity.getSize());
+            switch (type) {
+            case STRING:
+                CodecSupport.writeString(out, (String) content);
+                break;
+            case BYTE_ARRAY:
+                CodecSupport.writeBytes(out, (byte[]) content);
+                break;
+            case TMP_FILE:
+                CodecSupport.writeString(out, content == null ? null : ((File) content).getPath());
+                break;
+            default:
+                throw new IllegalArgumentException("响应实体的类型异常");
+            }
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        }
+        return CodecSupport.wrap(VERSION, bytes.toByteArray(), compressThreshold);
+    }
+
+    @Override
+    public ResponseEntity decode(byte[] bytes) {
+        if (!CodecSupport.isEncoded(bytes)) {
+            // 旧版本的Java序列化数据
+            return (ResponseEntity) RedisUtils.decodeObject(bytes);
+        }
+        try (DataInputStream in = CodecSupport.unwrap(bytes, VERSION)) {
+            ResponseEntity.TYPE type = ResponseEntity.TYPE.values()[in.readUnsignedByte()];
+            long size = CodecSupport.readVarLong(in);
+            Object content;
+            switch (type) {
+            case STRING:
+                content = CodecSupport.readString(in);
+                break;
+            case BYTE_ARRAY:
+                content = CodecSupport.readBytes(in);
+                break;
+            case TMP_FILE:
+                String path = CodecSupport.readString(in);
+                content = path == null ? null : new File(path);
+                break;
+            default:
+                throw new IllegalArgumentException("响应实体的类型异常");
+            }
+            ResponseEntity entity = new ResponseEntity(content, type);
+            if (size >= 0) {
+                entity.setSize(size);
+            }
+            return entity;
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package indi.crawler.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URI;
+
+import indi.exception.WrapperException;
+
+/**
+ * 任务的二进制编解码器，取代Java序列化
+ *
+ * <p>格式（版本1）：任务定义名、URI、优先级、尝试次数、请求实体、参数；整数为变长编码，字符串为UTF-8。
+ * 参数为字符串时直接写入，其他类型仍使用Java序列化
+ *
+ * <p>任务通常只有几十到几百字节，默认不压缩
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+public class TaskCodec implements ValueCodec<TaskRecord> {
+    public static final TaskCodec DEFAULT = new TaskCodec(-1);
+
+    private static final int VERSION = 1;
+    private static final int ARG_NULL = 0;
+    private static final int ARG_STRING = 1;
+    private static final int ARG_SERIALIZED = 2;
+
+    private final int compressThreshold;
+
+    /**
+     * @param compressThreshold 正文达到该字节数时用deflate压缩；小于0表示不压缩
+     */
+    public TaskCodec(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    /**
+     * 判断字节是否由该编解码器编码；不是则可能为旧版本的Java序列化数据
+     */
+    public static boolean isEncoded(byte[] bytes) {
+        return CodecSupport.isEncoded(bytes);
+    }
+
+    @Override
+    public byte[] encode(TaskRecord task) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            CodecSupport.writeString(out, task.getTaskDefName());
+            CodecSupport.writeString(out, task.getUri() == null ? null : task.getUri().toString());
+            CodecSupport.writeVarInt(out, task.getPriority());
+            CodecSupport.writeVarInt(out, task.getAttempts());
+            CodecSupport.writeString(out, task.getRequestEntityStr());
+            if (task.getArg() == null) {
+                out.writeByte(ARG_NULL);
+            } else if (task.getArg() instanceof String) {
+                out.writeByte(ARG_STRING);
+                CodecSupport.writeString(out, (String) task.getArg());
+            } else {
+                out.writeByte(ARG_SERIALIZED);
+                CodecSupport.writeBytes(out, CodecSupport.serialize(task.getArg()));
+            }
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        }
+        return CodecSupport.wrap(VERSION, bytes.toByteArray(), compressThreshold);
+    }
+
+    @Override
+    public TaskRecord decode(byte[] bytes) {
+        try (DataInputStream in = CodecSupport.unwrap(bytes, VERSION)) {
+            String taskDefName = CodecSupport.readString(in);
+            String uri = CodecSupport.readString(in);
+            int priority = CodecSupport.readVarInt(in);
+            int attempts = CodecSupport.readVarInt(in);
+            String requestEntityStr = CodecSupport.readString(in);
+            int argType = in.readUnsignedByte();
+            Serializable arg;
+            switch (argType) {
+            case ARG_NULL:
+                arg = null;
+                break;
+            case ARG_STRING:
+                arg = CodecSupport.readString(in);
+                break;
+            case ARG_SERIALIZED:
+                arg = CodecSupport.deserialize(CodecSupport.readBytes(in));
+                break;
+            default:
+                throw new IllegalArgumentException("未知的参数类型：" + argType);
+            }
+            return new TaskRecord(taskDefName, uri == null ? null : URI.create(uri), requestEntityStr, priority,
+                    attempts, arg);
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        }
+    }
+}
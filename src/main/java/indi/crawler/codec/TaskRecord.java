@@ -0,0 +1,33 @@
+package indi.crawler.codec;
+
+import java.io.Serializable;
+import java.net.URI;
+
+import indi.crawler.task.Task;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 任务在外部存储中的表示，只包含重建任务所需的字段
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class TaskRecord {
+    private final String taskDefName;
+    private final URI uri;
+    private final String requestEntityStr;
+    private final int priority;
+    private final int attempts;
+    private final Serializable arg;
+
+    @SuppressWarnings("deprecation")
+    public static TaskRecord of(Task task) {
+        return new TaskRecord(task.getTaskDefName(), task.getUri(), task.getRequestEntityStr(), task.getPriority(),
+                task.getAttempts(), task.getArg());
+    }
+}
@@ -0,0 +1,14 @@
+package indi.crawler.codec;
+
+/**
+ * 值与字节之间的编解码器，用于写入Redis等外部存储
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+public interface ValueCodec<T> {
+
+    byte[] encode(T value);
+
+    T decode(byte[] bytes);
+}
@@ -1,7 +1,9 @@
 package indi.crawler.exception;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
@@ -18,7 +20,6 @@ import com.google.common.collect.ImmutableMap;
 import indi.crawler.processor.ProcessorContext;
 import indi.crawler.task.CrawlerStatus;
 import indi.crawler.task.Task;
-import indi.crawler.task.def.TaskDef;
 import indi.exception.WrapperException;
 import lombok.extern.slf4j.Slf4j;
 
@@ -30,16 +31,34 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class BasicExceptionHandler implements ExceptionHandler {
-    /** 5s */
-    private static final long DEFAULT_ADDITIONAL_WAIT_MAX_MILLIS = 5000;
-    
     private ImmutableMap<Class<? extends Throwable>, BiFunction<Task, Throwable, HandleResult>> handlers; 
+    /**
+     * 异常类 -> 处理器的缓存：按异常类的继承关系查找最接近的处理器，每个异常类只查找一次
+     * 
+     * <p>此前按异常类精确匹配，子类异常总是落入默认处理器，已更正
+     */
+    private ConcurrentHashMap<Class<?>, BiFunction<Task, Throwable, HandleResult>> resolvedHandlers = new ConcurrentHashMap<>();
+    /** 重试策略：指数退避 + 随机抖动 */
+    private RetryPolicy retryPolicy = new RetryPolicy();
     
     private static final BiFunction<Task, Throwable, HandleResult> RECOVER_HANDLER = (ctx, e) -> {
         log.error("发生可回收异常，将回收爬虫并重试：{}", e.getMessage());
         return HandleResult.RECOVER;
     };
     
+    /** 找不到对应处理器时使用的默认处理器 */
+    private static final BiFunction<Task, Throwable, HandleResult> DEFAULT_HANDLER = (ctx, e) -> {
+        // 以集合的形式输出异常栈到日志中
+        log.error("该异常目前尚无法处理，将尝试再次处理-{} {} \n {}", ctx.getTaskDef().getName(), e,
+                Optional.ofNullable(e.getStackTrace())
+                    .map(s -> Arrays.stream(s).collect(Collectors.toList()))
+                    .orElse(null));
+        // 若捕获的异常无法处理，则标记任务无法完成，等待被回收
+        e.printStackTrace();
+        ctx.checkAndSetStatus(CrawlerStatus.INTERRUPTED);
+        return HandleResult.RECOVER;
+    };
+    
     protected void init() {
         // list -> 1
         // build Fun
@@ -51,6 +70,7 @@ public class BasicExceptionHandler implements ExceptionHandler {
                 .put(SSLException.class, RECOVER_HANDLER)
                 .put(NoHttpResponseException.class, RECOVER_HANDLER)
                 .put(TruncatedChunkException.class, RECOVER_HANDLER)
+                .put(IOException.class, RECOVER_HANDLER)// 连接超时等其他IO异常
                 .put(ClientProtocolException.class, (ctx, e) -> {
                     // 报该异常表示URI格式有问题？
                     log.warn("ClientProtocolException: {}", ctx.getUri());
@@ -83,40 +103,34 @@ public class BasicExceptionHandler implements ExceptionHandler {
         if (eClass.equals(AbortTaskException.class)) {
             throw (AbortTaskException) throwable;
         }
+        // 2026.10.18 服务器要求稍后重试：准确地延期至指定时间，并暂停该主机
+        if (throwable instanceof RetryLaterException) {
+            handleRetryLater(ctx, (RetryLaterException) throwable);
+            return;
+        }
         
         ctx.checkAndSetStatus(CrawlerStatus.PENDING);
         ctx.addThrowables(throwable);
         log.warn("处理异常({}) message={}", eClass, throwable.getMessage());
-        TaskDef task = ctx.getTaskDef();
+        // IO异常计入主机的熔断器，主机连续失败时暂停其所有任务
+        if (throwable instanceof IOException && ctx.getUri() != null) {
+            ctx.getController().getCircuitBreaker().onFailure(ctx.getHost());
+        }
         // 尝试用已有的处理器去处理异常，若找不到对应的处理器，再用默认的处理器处理
-        BiFunction<Task, Throwable, HandleResult> handler = handlers.getOrDefault(eClass, (ctx0, e) -> {
-            // 以集合的形式输出异常栈到日志中
-            log.error("该异常目前尚无法处理，将尝试再次处理-{} {} \n {}", task.getName(), e,
-                    Optional.ofNullable(e.getStackTrace())
-                        .map(s -> Arrays.stream(s).collect(Collectors.toList()))
-                        .orElse(null));
-            // 若捕获的异常无法处理，则标记任务无法完成，等待被回收
-            e.printStackTrace();
-            ctx0.checkAndSetStatus(CrawlerStatus.INTERRUPTED);
-            return HandleResult.RECOVER;
-        });
+        BiFunction<Task, Throwable, HandleResult> handler = resolvedHandlers.computeIfAbsent(eClass, this::resolveHandler);
         
         HandleResult handleResult = handler.apply(ctx, throwable);
         // 若处理器处理的结果是回收，则开始走回收流程，尝试再次执行任务
         if (handleResult == HandleResult.RECOVER) {
             int attempts = ctx.getAttempts();
             attempts++;
-            // 计算额外等待时间
-            long totalCounts = ctx.getTaskDef().getTotalCounts().get();
             
             if (attempts <= ctx.getMaxRetries()) {
                 // 没有超过最大重试次数，将任务放到爬虫池的延时队列中
                 ctx.checkAndSetStatus(CrawlerStatus.DEFERRED);
                 // 直接线程等待很浪费资源，故将其放进等待队列，需要取值时才去判断一次是否过了等待时间
-                // 等待时间 = context的等待时间 + 额外等待时间
-                long additionalWaitMillis =  attempts / totalCounts
-                        * DEFAULT_ADDITIONAL_WAIT_MAX_MILLIS;// 额外等待时间:根据任务重试次数计算，尝试越多次，等待越久
-                long wakeUpTime = System.currentTimeMillis() + ctx.getRetryDeferrals() + additionalWaitMillis;
+                // 等待时间以context的等待时间为基础指数退避，尝试越多次，等待越久；并加入随机抖动，避免同时失败的任务同时重试
+                long wakeUpTime = System.currentTimeMillis() + retryPolicy.nextDelay(ctx.getRetryDeferrals(), ctx.getAttempts());
                 ctx.setPriority(ctx.getTaskDef().getPriority() + ctx.getPriority());
                 log.info("回收{}爬虫(第 {} / {} 次)：{}", ctx.getTaskDef().getName(), ctx.getAttempts(), ctx.getMaxRetries(), ctx.getMessage());
                 ctx.getController().deferral(ctx, wakeUpTime);
@@ -129,6 +143,42 @@ public class BasicExceptionHandler implements ExceptionHandler {
         }
     }
     
+    /**
+     * 按异常类的继承关系，查找最接近的处理器
+     * 
+     * @since 2026.10.18
+     */
+    private BiFunction<Task, Throwable, HandleResult> resolveHandler(Class<?> eClass) {
+        for (Class<?> c = eClass; c != null; c = c.getSuperclass()) {
+            BiFunction<Task, Throwable, HandleResult> handler = handlers.get(c);
+            if (handler != null) {
+                return handler;
+            }
+        }
+        return DEFAULT_HANDLER;
+    }
+    
+    /**
+     * 处理服务器要求稍后重试的情况：暂停主机，并将任务延期至允许重试的时间
+     * 
+     * <p>计入重试次数，超过最大重试次数时终止任务，避免服务器持续返回429/503时任务被无限延期
+     * 
+     * @since 2026.10.18
+     */
+    private void handleRetryLater(Task ctx, RetryLaterException e) {
+        if (ctx.getAttempts() + 1 > ctx.getMaxRetries()) {
+            log.error("任务超过最大重试次数：{} 次，将停止工作!! {}", ctx.getMaxRetries(), e.getMessage());
+            ctx.checkAndSetStatus(CrawlerStatus.INTERRUPTED);
+            return;
+        }
+        log.warn("{}，延期任务(第 {} / {} 次)：{}", e.getMessage(), ctx.getAttempts(), ctx.getMaxRetries(), ctx.getMessage());
+        if (e.getHost() != null) {
+            ctx.getController().pauseHost(e.getHost(), e.getRetryAt());
+        }
+        ctx.checkAndSetStatus(CrawlerStatus.DEFERRED);
+        ctx.getController().deferral(ctx, e.getRetryAt());
+    }
+    
     public enum HandleResult {
         RECOVER, NOT_RECOVER
     }
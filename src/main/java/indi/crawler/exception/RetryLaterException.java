@@ -0,0 +1,26 @@
+package indi.crawler.exception;
+
+import lombok.Getter;
+
+/**
+ * 服务器要求稍后重试（如响应码为429/503并带有Retry-After）时抛出的异常。异常处理器将把任务准确地延期至指定时间，
+ * 并暂停该主机的其他任务；计入任务的重试次数
+ * 
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+@Getter
+public class RetryLaterException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    
+    /** 允许重试的时间，millis */
+    private final long retryAt;
+    /** 需要暂停的主机；为null时只延期当前任务 */
+    private final String host;
+
+    public RetryLaterException(long retryAt, String host, String message) {
+        super(message);
+        this.retryAt = retryAt;
+        this.host = host;
+    }
+}
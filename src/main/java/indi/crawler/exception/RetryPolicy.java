@@ -0,0 +1,53 @@
+package indi.crawler.exception;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 重试策略：指数退避 + 随机抖动
+ * 
+ * <p>第n次重试的退避时间为 min(最大退避时间, 基础时间 * 倍数^(n-1))，实际等待时间在退避时间的 [1/2, 1] 之间随机取值，
+ * 避免同时失败的大量任务在同一时刻重试
+ * 
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+public class RetryPolicy {
+    /** 默认的退避倍数 */
+    private static final double DEFAULT_MULTIPLIER = 2;
+    /** 默认的最大退避时间，10min */
+    private static final long DEFAULT_MAX_DELAY_MILLIS = 10 * 60 * 1000L;
+    
+    private final double multiplier;
+    private final long maxDelayMillis;
+    
+    public RetryPolicy() {
+        this(DEFAULT_MULTIPLIER, DEFAULT_MAX_DELAY_MILLIS);
+    }
+    
+    /**
+     * 
+     * @param multiplier 退避倍数，不小于1
+     * @param maxDelayMillis 最大退避时间
+     */
+    public RetryPolicy(double multiplier, long maxDelayMillis) {
+        if (multiplier < 1 || maxDelayMillis <= 0) {
+            throw new IllegalArgumentException("重试策略参数错误：" + multiplier + ", " + maxDelayMillis);
+        }
+        this.multiplier = multiplier;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+    
+    /**
+     * 计算重试前的等待时间
+     * 
+     * @param baseMillis 基础时间，即第一次重试的退避时间
+     * @param attempts 已尝试的次数，从1开始
+     * @return 等待时间，millis
+     */
+    public long nextDelay(long baseMillis, int attempts) {
+        double backoff = Math.max(baseMillis, 0) * Math.pow(multiplier, Math.max(attempts - 1, 0));
+        long capped = (long) Math.min(backoff, maxDelayMillis);
+        long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(capped - half + 1);
+    }
+}
@@ -0,0 +1,118 @@
+package indi.crawler.filter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于AIMD（加性增、乘性减）的速率控制器，用于动态调整 {@link GcraRateLimiter} 的速率
+ *
+ * <p>响应正常且延迟稳定时，每个响应使速率增加 minRate 的1/10；遇到限流（429/503、Retry-After）时速率减半，遇到延迟突增时降至 3/4。
+ * 两次降速之间至少间隔一个冷却时间，避免同一时间段内大量在途请求的响应导致速率被连续降低。
+ *
+ * <p>延迟的基线为慢速的指数加权移动平均，单次延迟超过基线的3倍时视为突增
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+public class AimdRateController {
+    /** 每个正常的响应增加的速率，占最小速率的比例 */
+    private static final double ADDITIVE_INCREASE_FRACTION = 0.1;
+    /** 限流时的降速系数 */
+    private static final double THROTTLE_DECREASE_FACTOR = 0.5;
+    /** 延迟突增时的降速系数 */
+    private static final double LATENCY_DECREASE_FACTOR = 0.75;
+    /** 延迟突增的判断倍数 */
+    private static final double LATENCY_SPIKE_FACTOR = 3;
+    /** 延迟基线的平滑系数 */
+    private static final double LATENCY_EWMA_ALPHA = 0.05;
+    /** 延迟基线的预热样本数，预热期间不判断延迟突增 */
+    private static final int LATENCY_WARM_UP_SAMPLES = 10;
+    /** 两次降速的最小间隔 */
+    private static final long DECREASE_COOL_DOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final GcraRateLimiter limiter;
+    private final double minRate;
+    private final double maxRate;
+
+    private double rate;
+    private double latencyBaselineNanos;
+    private int latencySamples;
+    private long lastDecreaseNanos = System.nanoTime() - DECREASE_COOL_DOWN_NANOS;
+
+    /**
+     * @param limiter 被控制的限流器，以其当前速率为初始速率
+     * @param minRate 最小的每秒执行次数
+     * @param maxRate 最大的每秒执行次数
+     */
+    public AimdRateController(GcraRateLimiter limiter, double minRate, double maxRate) {
+        if (!(minRate > 0) || maxRate < minRate) {
+            throw new IllegalArgumentException("速率范围错误：" + minRate + " ~ " + maxRate);
+        }
+        this.limiter = limiter;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.rate = clamp(limiter.getRate());
+        limiter.setRate(rate);
+    }
+
+    /**
+     * 记录一次正常的响应
+     *
+     * @param latencyNanos 从发出请求到收到响应的耗时
+     */
+    public synchronized void onSuccess(long latencyNanos) {
+        boolean spike = latencySamples >= LATENCY_WARM_UP_SAMPLES
+                && latencyNanos > latencyBaselineNanos * LATENCY_SPIKE_FACTOR;
+        // 更新延迟基线；突增的样本不计入，避免基线被迅速拉高
+        if (latencySamples == 0) {
+            latencyBaselineNanos = latencyNanos;
+        } else if (!spike) {
+            latencyBaselineNanos += (latencyNanos - latencyBaselineNanos) * LATENCY_EWMA_ALPHA;
+        }
+        latencySamples++;
+        if (spike) {
+            decrease(LATENCY_DECREASE_FACTOR);
+        } else {
+            update(rate + minRate * ADDITIVE_INCREASE_FRACTION);
+        }
+    }
+
+    /**
+     * 记录一次被限流的响应（429/503、Retry-After等）
+     */
+    public synchronized void onThrottled() {
+        decrease(THROTTLE_DECREASE_FACTOR);
+    }
+
+    private void decrease(double factor) {
+        long now = System.nanoTime();
+        if (now - lastDecreaseNanos < DECREASE_COOL_DOWN_NANOS) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        update(rate * factor);
+    }
+
+    private void update(double newRate) {
+        newRate = clamp(newRate);
+        if (newRate != rate) {
+            rate = newRate;
+            limiter.setRate(newRate);
+        }
+    }
+
+    private double clamp(double r) {
+        return Math.max(minRate, Math.min(maxRate, r));
+    }
+
+    /**
+     * @return 当前的每秒执行次数
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.3f/s [%.3f ~ %.3f]", getRate(), minRate, maxRate);
+    }
+}
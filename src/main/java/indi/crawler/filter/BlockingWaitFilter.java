@@ -5,10 +5,10 @@ package indi.crawler.filter;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+
+import com.google.common.cache.CacheBuilder;
 
 import indi.crawler.task.CrawlerController;
 import indi.crawler.task.CrawlerStatus;
@@ -31,89 +31,181 @@ import lombok.extern.slf4j.Slf4j;
  * 
  * <p>TODO:应该将延期功能与爬虫池分离开来？
  * 
+ * <p>2026.10.18：
+ * 此前对每个任务定义加锁，只支持固定间隔，且阻塞任务保存在线性移除的队列中，爬虫线程每次取任务都会竞争同一把锁。
+ * 现改为基于 {@link GcraRateLimiter} 的无锁限流，可按任务定义、按主机、全局三个维度配置速率与突发数；
+ * 依次向各限流器预约，直接算出任务的准确执行时间，任务只需延期一次
+ * 
  * @author wzh
  * @since 2020.03.25
  */
 @Slf4j
 @NoArgsConstructor
 public class BlockingWaitFilter extends TaskFilter {
-    /** 存放任务定义与所需阻塞时间的映射 */
-    private Map<TaskDef, Long> blockingMillisMap = new HashMap<>();
-    /** 存放任务定义与下一次可开始时间的映射 */
-    private Map<TaskDef, Long> nextMillisMap = new ConcurrentHashMap<>();
-    /** 保存阻塞中的任务，用于避免重复阻塞 */
-    private LinkedBlockingQueue<Task> blockingQueue = new LinkedBlockingQueue<>();
+    /** 任务定义 -> 限流器 */
+    private Map<TaskDef, GcraRateLimiter> taskDefLimiters = new ConcurrentHashMap<>();
+    /** 任务定义 -> 按主机限流的配置；同一主机的限流器由配置了该主机限流的所有任务定义共享 */
+    private Map<TaskDef, RateSpec> hostRateSpecs = new ConcurrentHashMap<>();
+    /** 主机 -> 限流器，懒加载 */
+    private Map<String, GcraRateLimiter> hostLimiters = new ConcurrentHashMap<>();
+    /** 全局限流器，作用于所有任务 */
+    private volatile GcraRateLimiter globalLimiter;
+    /**
+     * 已预约并延期的任务，唤醒后直接放行，用于避免重复阻塞；按引用区分
+     * 
+     * <p>弱引用任务：延期的任务被舍弃（移除、中止、超过重试次数）或经序列化放入Redis后，原对象被回收时记录随之清除，不会无限增长
+     */
+    private Map<Task, Boolean> admitteds = CacheBuilder.newBuilder().weakKeys().<Task, Boolean>build().asMap();
     
     
     /**
-     * 为任务定义添加阻塞策略
+     * 为任务定义添加阻塞策略：每隔millis执行一次
      * 
      * @author DragonBoom
      * @since 2020.03.25
      * @param taskDef
      * @param millis
      */
-    public synchronized void addBlock(TaskDef taskDef, Long millis) {
-        blockingMillisMap.put(taskDef, millis);
+    public void addBlock(TaskDef taskDef, Long millis) {
+        addRateLimit(taskDef, 1000D / millis, 1);
+    }
+    
+    /**
+     * 为任务定义添加限流
+     * 
+     * @param permitsPerSecond 每秒执行次数
+     * @param burst 允许突发的次数
+     * @since 2026.10.18
+     */
+    public void addRateLimit(TaskDef taskDef, double permitsPerSecond, int burst) {
+        taskDefLimiters.put(taskDef, new GcraRateLimiter(permitsPerSecond, burst));
+    }
+    
+    /**
+     * 为任务定义添加按主机的限流，即对该任务定义访问的每个主机分别限流
+     * 
+     * @param permitsPerSecond 每个主机每秒执行次数
+     * @param burst 每个主机允许突发的次数
+     * @since 2026.10.18
+     */
+    public void addHostRateLimit(TaskDef taskDef, double permitsPerSecond, int burst) {
+        hostRateSpecs.put(taskDef, new RateSpec(permitsPerSecond, burst));
+    }
+    
+    /**
+     * 修改任务定义按主机限流的初始速率，之后新建的主机限流器以该速率开始，已有的主机限流器不受影响
+     * 
+     * @return 任务定义是否启用了按主机的限流
+     * @since 2026.10.18
+     */
+    public boolean setHostInitialRate(TaskDef taskDef, double permitsPerSecond) {
+        RateSpec spec = hostRateSpecs.get(taskDef);
+        if (spec == null) {
+            return false;
+        }
+        hostRateSpecs.put(taskDef, new RateSpec(permitsPerSecond, spec.burst));
+        return true;
+    }
+    
+    /**
+     * 设置全局限流
+     * 
+     * @param permitsPerSecond 每秒执行次数
+     * @param burst 允许突发的次数
+     * @since 2026.10.18
+     */
+    public void setGlobalRateLimit(double permitsPerSecond, int burst) {
+        globalLimiter = new GcraRateLimiter(permitsPerSecond, burst);
+    }
+    
+    /**
+     * 获取任务定义的限流器，可用于动态调整速率
+     * 
+     * @return 没有则返回null
+     * @since 2026.10.18
+     */
+    public GcraRateLimiter getRateLimiter(TaskDef taskDef) {
+        return taskDefLimiters.get(taskDef);
+    }
+    
+    /**
+     * 获取主机的限流器，可用于动态调整速率
+     * 
+     * @return 没有则返回null
+     * @since 2026.10.18
+     */
+    public GcraRateLimiter getHostRateLimiter(String host) {
+        return hostLimiters.get(host);
     }
 
     @Override
     public boolean isExecute(Task task, Thread thread, CrawlerController controller) {
-        if (blockingMillisMap.isEmpty()) {
-            return true;
-        }
-        
-        TaskDef taskDef = task.getTaskDef();
-        Long bMillis = blockingMillisMap.get(taskDef);
-        if (bMillis == null) {
-            // 爬虫任务不需要阻塞执行
+        if (isEmpty()) {
             return true;
         }
         if (task.getStatus() == CrawlerStatus.BLOCKING_TIME) {
             // 不拦截已阻塞任务
             throw new IllegalArgumentException("该任务已阻塞：" + task);
         }
-        if (blockingQueue.remove(task)) {
-            // 已执行过阻塞，跳过
+        if (admitteds.remove(task) != null) {
+            // 已预约过执行时间，跳过
             return true;
         }
-        // 同步锁，粒度为爬虫定义对象，因此可能会多线程执行
-        boolean isExecute = true;
-        synchronized (taskDef) {
-            // 判断是否需要阻塞
-            Long next = nextMillisMap.get(taskDef);
-            long now = System.currentTimeMillis();
-            if (next == null) {
-                // 该任务定义没有阻塞记录，新增一个；当前任务不需要阻塞
-                log.debug("【阻塞同步过滤器】：初始化任务{}的阻塞记录完成", taskDef.getName());
-                next = now;
-            } else {
-                if (next <= now) {
-                    // 当前时间已超过可执行时间，不需要阻塞
-                    log.debug("【阻塞同步过滤器】：任务{}不需要阻塞", taskDef.getName());
-                } else {
-                    // 尚未抵达下一次可执行时间，需要阻塞
-                    log.debug("【阻塞同步过滤器】：任务{}需要阻塞，下一次唤醒时间为：{}", taskDef.getName(),
-                            new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(next)));
-                    // 2020.07.23
-                    // 将爬虫任务添加至爬虫池的延期队列
-                    task.checkAndSetStatus(CrawlerStatus.BLOCKING_TIME);
-                    if (!controller.deferral(task, next)) {
-                        throw new RuntimeException("回收阻塞的爬虫任务失败：" + task.getMessage());
-                    }
-                    blockingQueue.add(task);
-                    isExecute = false;
-                }
-            }
-            // 添加/更新下一次可执行时间
-            next += bMillis;
-            nextMillisMap.put(taskDef, next);
+        TaskDef taskDef = task.getTaskDef();
+        long now = System.currentTimeMillis();
+        // 依次向各限流器预约，后一个限流器从前一个限流器给出的时间开始预约
+        long admitTime = now;
+        GcraRateLimiter limiter = taskDefLimiters.get(taskDef);
+        if (limiter != null) {
+            admitTime = limiter.reserve(admitTime);
         }
-        return isExecute;// default true
+        RateSpec hostRateSpec = hostRateSpecs.get(taskDef);
+        if (hostRateSpec != null) {
+            String host = task.getHost() == null ? "" : task.getHost();
+            admitTime = hostLimiters.computeIfAbsent(host, h -> hostRateSpec.newLimiter()).reserve(admitTime);
+        }
+        GcraRateLimiter global = globalLimiter;
+        if (global != null) {
+            admitTime = global.reserve(admitTime);
+        }
+        if (admitTime <= now) {
+            log.debug("【阻塞同步过滤器】：任务{}不需要阻塞", taskDef.getName());
+            return true;
+        }
+        // 尚未抵达可执行时间，直接延期至预约的时间
+        log.debug("【阻塞同步过滤器】：任务{}需要阻塞，唤醒时间为：{}", taskDef.getName(),
+                new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(admitTime)));
+        // 先记录再延期，避免任务被唤醒时尚未记录
+        admitteds.put(task, Boolean.TRUE);
+        task.checkAndSetStatus(CrawlerStatus.BLOCKING_TIME);
+        if (!controller.deferral(task, admitTime)) {
+            admitteds.remove(task);
+            throw new RuntimeException("回收阻塞的爬虫任务失败：" + task.getMessage());
+        }
+        return false;
     }
     
     public boolean isEmpty() {
-        return blockingMillisMap.isEmpty();
+        return taskDefLimiters.isEmpty() && hostRateSpecs.isEmpty() && globalLimiter == null;
+    }
+    
+    /**
+     * 限流配置
+     */
+    private static final class RateSpec {
+        private final double permitsPerSecond;
+        private final int burst;
+        
+        private RateSpec(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            // 提前校验参数
+            newLimiter();
+        }
+        
+        private GcraRateLimiter newLimiter() {
+            return new GcraRateLimiter(permitsPerSecond, burst);
+        }
     }
  
 }
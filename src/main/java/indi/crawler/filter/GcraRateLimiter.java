@@ -0,0 +1,99 @@
+package indi.crawler.filter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于GCRA（Generic Cell Rate Algorithm，与令牌桶等价）的无锁限流器
+ *
+ * <p>只需维护一个“理论到达时间”（TAT），通过CAS更新，不需要加锁，也不需要定时补充令牌的线程。
+ * 每次预约都会直接算出任务可以执行的准确时间，调用方据此将任务一次性延期至该时间，而不是反复重试。
+ *
+ * <p>时间精度为纳秒（按当前毫秒时间换算），因此每秒超过1000次的速率也能正确计算
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+public class GcraRateLimiter {
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** 两次放行的间隔，nanos */
+    private volatile long intervalNanos;
+    /** 允许突发的次数 */
+    private final int burst;
+    /** 理论到达时间，nanos（以纪元毫秒换算） */
+    private final AtomicLong tat = new AtomicLong();
+
+    /**
+     * @param permitsPerSecond 每秒放行次数
+     * @param burst 允许突发的次数，至少为1
+     */
+    public GcraRateLimiter(double permitsPerSecond, int burst) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst必须大于0：" + burst);
+        }
+        this.burst = burst;
+        setRate(permitsPerSecond);
+    }
+
+    /**
+     * 调整速率，立即生效，已预约的时间不受影响
+     *
+     * @param permitsPerSecond 每秒放行次数
+     */
+    public void setRate(double permitsPerSecond) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond必须大于0：" + permitsPerSecond);
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+    }
+
+    /**
+     * @return 当前的每秒放行次数
+     */
+    public double getRate() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * 预约一次执行，并返回可以执行的时间
+     *
+     * <p>预约总会成功：若当前不允许执行，则占用之后最早的一个名额。多个限流器可以链式预约，将上一个限流器返回的时间作为下一个限流器的earliest
+     *
+     * @param earliest 最早的执行时间，millis
+     * @return 可以执行的时间，millis，不早于earliest
+     */
+    public long reserve(long earliest) {
+        long now = earliest * NANOS_PER_MILLI;
+        while (true) {
+            long interval = intervalNanos;
+            long current = tat.get();
+            // 允许比理论到达时间提前 (burst - 1) 个间隔
+            long admit = Math.max(now, current - interval * (burst - 1));
+            long next = Math.max(current, now) + interval;
+            if (tat.compareAndSet(current, next)) {
+                // 向上取整至毫秒，确保不会提前执行
+                return (admit + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI;
+            }
+        }
+    }
+
+    /**
+     * 预约一次从当前开始的执行
+     *
+     * @see #reserve(long)
+     */
+    public long reserve() {
+        return reserve(System.currentTimeMillis());
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("GcraRateLimiter[rate=").append(String.format("%.3f", getRate()))
+                .append("/s, burst=").append(burst).append("]").toString();
+    }
+}
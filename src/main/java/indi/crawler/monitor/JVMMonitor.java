@@ -16,6 +16,10 @@ import lombok.extern.slf4j.Slf4j;
  * <p>该监视器默认启用
  *
  * <p>2021.12.10 这个类似乎只是定期清理爬虫而已；需要确保一定能回收爬虫
+ *
+ * <p>2026.10.18 此前每个周期（5秒）复制并遍历整个出租集合，现只检查已超过出租期限的任务。因此未被主动回收的
+ * 终止状态（ABORTED、FINISHED、INTERRUPTED）的任务，要到出租期限（任务的最大出租时间，未设置时为5分钟）后才会被回收，
+ * 而不是此前的约5秒；正常执行的任务结束时会主动从任务池移除，不受影响
  */
 @Slf4j
 public class JVMMonitor extends Monitor {
@@ -53,9 +57,9 @@ public class JVMMonitor extends Monitor {
 //                return;
 //            }
             // 开始处理出租的上下文
-            // 获取出租上下文集合的副本
-            Task[] leaseds = pool.cloneLeased();
+            // 只取出已超过出租期限的任务，而不是复制整个出租集合（2026.10.18）
             long now = System.currentTimeMillis();
+            Task[] leaseds = pool.pollExpiredLeased(now);
             for (Task ctx : leaseds) {
                 // 清空所有处于终端状态，无法继续执行的爬虫上下文
                 CrawlerStatus status = ctx.getStatus();
@@ -78,9 +82,8 @@ public class JVMMonitor extends Monitor {
                         log.warn("爬虫任务状态为RUNNING，但未被线程执行");
                         break;
                     }
-                    // 校验最大执行时间
-                    if (ctx.getLeasedTime() != -1 && ctx.getMaxLeasedTime() != -1 &&
-                            now - ctx.getLeasedTime() > ctx.getMaxLeasedTime()) {
+                    // 校验最大执行时间：出租期限已到，设置了最大出租时间即表示已超时
+                    if (ctx.getMaxLeasedTime() > 0) {
                         log.warn("爬虫任务已超过最大执行时间：{}", ctx.getMessage());
                         break;
                     }
@@ -89,8 +92,9 @@ public class JVMMonitor extends Monitor {
                 default:
                     log.warn("出租中的爬虫状态异常：{}", ctx.getMessage());
                 }
-                // 舍弃任务
+                // 舍弃任务，并确保从任务池中移除（任务未绑定线程时，变更状态不会移除任务）
                 ctx.checkAndSetStatus(CrawlerStatus.ABORTED);
+                pool.remove(ctx);
             }
 //            if (cleanSize > 0) {
 //                log.info("## JVM Monitor will clean [ {} / {} ] cralwer context", cleanSize, leasedSize);
@@ -7,6 +7,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import indi.crawler.exception.BasicExceptionHandler;
 import indi.crawler.exception.ExceptionHandler;
 import indi.crawler.processor.http.HTTPProcessorExecutor;
+import indi.crawler.processor.http.RetryAfterProcessor;
 import indi.crawler.task.CrawlerController;
 import indi.crawler.task.Task;
 import indi.crawler.task.def.TaskDef;
@@ -52,6 +53,10 @@ public class ProcessorChain {
         ProcessorExecutor executor = getExecutor(task);
         try {
             executor.execute(pCtx, processors);
+            // 执行成功，关闭主机的熔断器
+            if (ctx.getUri() != null) {
+                controller.getCircuitBreaker().onSuccess(ctx.getHost());
+            }
         } catch (Throwable e) {
             exceptionHandler.handleException(pCtx, e);
         }
@@ -71,10 +76,15 @@ public class ProcessorChain {
         List<Processor> taskProcessor = task.getCustomProcessors();
         List<Processor> jobProcessor = controller.getJob().getCustomProcessors();
 
-        processors = new ArrayList<>(taskProcessor.size() + jobProcessor.size() + 1);// + 1 for connection processor
+        processors = new ArrayList<>(taskProcessor.size() + jobProcessor.size() + 2);// + 2 for default and connection processor
         // 先添加任务级别，再添加工程级别的处理器
         processors.addAll(taskProcessor);
         processors.addAll(jobProcessor);
+        
+        // 添加默认的处理器：遵循服务器的限流响应头（2026.10.18）
+        if (task.getType() == TaskType.HTTP_TOPICAL) {
+            processors.add(new RetryAfterProcessor(controller));
+        }
 
         // 2. 添加连接处理器到List末端
         // 获取处理器的执行者
@@ -1,13 +1,43 @@
 package indi.crawler.processor;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import indi.crawler.task.Task;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 
-@AllArgsConstructor
 public class ProcessorContext {
     @Getter
     @Setter
     private Task crawlerContext;
+    /** 处理器间共享的属性，生命周期与单次处理相同；懒加载。同一任务只由一个线程处理，不需要保证线程安全 */
+    private Map<String, Object> attributes;
+
+    public ProcessorContext(Task crawlerContext) {
+        this.crawlerContext = crawlerContext;
+    }
+
+    /**
+     * 获取处理器设置的属性
+     * 
+     * @return 没有则返回null
+     * @since 2026.10.18
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String key) {
+        return attributes == null ? null : (T) attributes.get(key);
+    }
+
+    /**
+     * 设置属性，以便在处理的不同阶段、不同处理器间传递数据
+     * 
+     * @since 2026.10.18
+     */
+    public void setAttribute(String key, Object value) {
+        if (attributes == null) {
+            attributes = new HashMap<>();
+        }
+        attributes.put(key, value);
+    }
 }
@@ -0,0 +1,114 @@
+package indi.crawler.processor.http;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+
+import indi.crawler.filter.AimdRateController;
+import indi.crawler.filter.BlockingWaitFilter;
+import indi.crawler.filter.GcraRateLimiter;
+import indi.crawler.monitor.CloseableMonitor;
+import indi.crawler.processor.ProcessorContext;
+import indi.crawler.processor.ProcessorResult;
+import indi.crawler.task.Task;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 根据响应动态调整请求速率的处理器，取代手动调整的固定阻塞时间
+ * 
+ * <p>记录发出请求至收到响应的耗时，交由 {@link AimdRateController} 调整任务所用的限流器：
+ * 优先调整任务所访问主机的限流器，没有则调整任务定义的限流器。响应码为429/503或带有Retry-After时视为被限流。
+ * 
+ * <p>当前速率会输出到结束日志中，也可通过 {@link #getRates()} 获取
+ * 
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+@Slf4j
+public class AdaptiveRateProcessor extends HTTPProcessor {
+    private static final String START_NANOS_ATTRIBUTE = AdaptiveRateProcessor.class.getName() + ".startNanos";
+    
+    private BlockingWaitFilter filter;
+    private double minRate;
+    private double maxRate;
+    /** 限流器 -> 速率控制器；限流器按引用区分 */
+    private Map<GcraRateLimiter, AimdRateController> controllers = new ConcurrentHashMap<>();
+    /** 用于输出的名称 -> 速率控制器 */
+    private Map<String, AimdRateController> namedControllers = new ConcurrentHashMap<>();
+    
+    /**
+     * 
+     * @param filter 限流器所在的过滤器
+     * @param minRate 最小的每秒请求数
+     * @param maxRate 最大的每秒请求数
+     */
+    public AdaptiveRateProcessor(BlockingWaitFilter filter, double minRate, double maxRate) {
+        this.filter = filter;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        CloseableMonitor.registLog(() -> "自适应速率：" + namedControllers);
+    }
+
+    @Override
+    protected ProcessorResult executeRequest0(ProcessorContext pCtx) throws Throwable {
+        pCtx.setAttribute(START_NANOS_ATTRIBUTE, System.nanoTime());
+        return ProcessorResult.KEEP_GOING;
+    }
+
+    @Override
+    protected ProcessorResult receiveResponse0(ProcessorContext pCtx) throws Throwable {
+        Long startNanos = pCtx.getAttribute(START_NANOS_ATTRIBUTE);
+        Task task = pCtx.getCrawlerContext();
+        HttpResponse response = task.getResponse();
+        AimdRateController controller = getController(task);
+        if (startNanos == null || response == null || controller == null) {
+            return ProcessorResult.KEEP_GOING;
+        }
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode == 429 || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE
+                || response.containsHeader("Retry-After")) {
+            controller.onThrottled();
+            log.debug("请求被限流，降低速率至：{}，{}", controller, task.getMessage());
+        } else {
+            controller.onSuccess(System.nanoTime() - startNanos);
+        }
+        return ProcessorResult.KEEP_GOING;
+    }
+    
+    /**
+     * 获取任务所用限流器的速率控制器
+     * 
+     * @return 任务没有限流器时返回null
+     */
+    private AimdRateController getController(Task task) {
+        String host = task.getHost();
+        GcraRateLimiter limiter = host == null ? null : filter.getHostRateLimiter(host);
+        String name = host;
+        if (limiter == null) {
+            limiter = filter.getRateLimiter(task.getTaskDef());
+            name = task.getTaskDefName();
+        }
+        if (limiter == null) {
+            return null;
+        }
+        String controllerName = name;
+        return controllers.computeIfAbsent(limiter, l -> {
+            AimdRateController controller = new AimdRateController(l, minRate, maxRate);
+            namedControllers.put(controllerName, controller);
+            return controller;
+        });
+    }
+    
+    /**
+     * 获取各主机/任务定义的当前速率
+     * 
+     * @return 主机或任务定义名 -> 每秒请求数
+     */
+    public Map<String, Double> getRates() {
+        Map<String, Double> rates = new ConcurrentHashMap<>();
+        namedControllers.forEach((name, controller) -> rates.put(name, controller.getRate()));
+        return rates;
+    }
+}
@@ -0,0 +1,214 @@
+package indi.crawler.processor.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.apache.http.HttpResponse;
+
+import com.google.common.hash.Hashing;
+
+import indi.crawler.processor.ProcessorContext;
+import indi.crawler.processor.ProcessorResult;
+import indi.crawler.task.ResponseEntity;
+import indi.crawler.task.Task;
+import indi.crawler.task.def.TaskDef;
+import indi.exception.WrapperException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于本地磁盘的响应缓存，用于下载类型为临时文件（{@link ResponseEntity.TYPE#TMP_FILE}）的任务
+ *
+ * <p>响应按内容的SHA-256保存，内容相同的响应只保存一份；每个缓存键只保存一个很小的索引文件（内容的哈希与大小）。目录结构：
+ * <ul>
+ * <li>blobs/哈希前两位/哈希：响应的内容
+ * <li>index/键的哈希前两位/键的哈希：索引
+ * </ul>
+ *
+ * <p>命中缓存时，在任务的临时文件目录中创建指向缓存的硬链接（跨磁盘等无法创建硬链接时复制），不发送请求。
+ * 由于是硬链接，结果处理器应移动或删除临时文件，不能直接修改其内容
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+@Slf4j
+public class BlobCacheProcessor extends CacheProcessor {
+    private static final String FIELD_ATTRIBUTE = BlobCacheProcessor.class.getName() + ".field";
+    private static final String CACHED_ATTRIBUTE = BlobCacheProcessor.class.getName() + ".cached";
+    private static final String HASH = "hash";
+    private static final String SIZE = "size";
+
+    private final Path blobDir;
+    private final Path indexDir;
+
+    public BlobCacheProcessor(Path dir) {
+        this.blobDir = dir.resolve("blobs");
+        this.indexDir = dir.resolve("index");
+        try {
+            Files.createDirectories(blobDir);
+            Files.createDirectories(indexDir);
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        }
+    }
+
+    /**
+     * 删除任务的缓存（如缓存的响应有误时）；只删除索引，内容可能被其他键共用，予以保留
+     *
+     * @return 是否存在并删除了缓存
+     */
+    public boolean evict(Task task) {
+        try {
+            return Files.deleteIfExists(indexPath(generateField(task)));
+        } catch (Throwable e) {
+            throw new WrapperException(e);
+        }
+    }
+
+    @Override
+    protected ProcessorResult executeRequestByCache(ProcessorContext iCtx) throws Throwable {
+        Task ctx = iCtx.getCrawlerContext();
+        ResponseEntity responseEntity = ctx.getResponseEntity();
+        if (responseEntity.getType() != ResponseEntity.TYPE.TMP_FILE) {
+            return ProcessorResult.KEEP_GOING;
+        }
+        String field = generateField(ctx);
+        iCtx.setAttribute(FIELD_ATTRIBUTE, field);
+        Path blob = lookup(field);
+        if (blob == null) {
+            log.info("该任务尚未缓存到磁盘，将缓存响应 {} {}", ctx.getTaskDef().getName(), ctx.getUri());
+            return ProcessorResult.KEEP_GOING;
+        }
+        File tmpFile = link(blob, tmpDirOf(ctx));
+        log.info("该任务已缓存到磁盘，不再发送请求 {} {}", ctx.getTaskDef().getName(), ctx.getUri());
+        responseEntity.setContent(tmpFile);
+        iCtx.setAttribute(CACHED_ATTRIBUTE, Boolean.TRUE);
+        return ProcessorResult.CONTINUE_STAGE;// 跳过其他拦截器（不需要发送请求）
+    }
+
+    @Override
+    protected ProcessorResult receiveResponseByCache(ProcessorContext iCtx) throws Throwable {
+        if (iCtx.getAttribute(CACHED_ATTRIBUTE) != null) {
+            return ProcessorResult.CONTINUE_STAGE;// 已从缓存中取得临时文件，不再接收响应
+        }
+        return ProcessorResult.KEEP_GOING;
+    }
+
+    /**
+     * 在结果处理器移动临时文件之前，将其保存到缓存中
+     */
+    @Override
+    protected ProcessorResult handleResultByCache(ProcessorContext iCtx) throws Throwable {
+        String field = iCtx.getAttribute(FIELD_ATTRIBUTE);
+        if (field == null || iCtx.getAttribute(CACHED_ATTRIBUTE) != null) {
+            return ProcessorResult.KEEP_GOING;
+        }
+        Task ctx = iCtx.getCrawlerContext();
+        HttpResponse response = ctx.getResponse();
+        Object content = ctx.getResponseEntity().getContent();
+        if (response == null || response.getStatusLine().getStatusCode() >= 300 || !(content instanceof File)) {
+            return ProcessorResult.KEEP_GOING;
+        }
+        try {
+            store(field, ((File) content).toPath());
+        } catch (IOException e) {
+            // 缓存失败不影响任务的处理
+            log.error("缓存响应到磁盘失败：" + field, e);
+        }
+        return ProcessorResult.KEEP_GOING;
+    }
+
+    /**
+     * 查找缓存的内容，索引或内容不存在、大小不一致时返回null
+     */
+    private Path lookup(String field) throws IOException {
+        Path index = indexPath(field);
+        if (!Files.exists(index)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(index)) {
+            properties.load(in);
+        }
+        Path blob = blobPath(properties.getProperty(HASH));
+        if (!Files.exists(blob) || Files.size(blob) != Long.parseLong(properties.getProperty(SIZE))) {
+            log.warn("磁盘缓存的内容已丢失或不完整：{}", field);
+            return null;
+        }
+        return blob;
+    }
+
+    /**
+     * 保存临时文件：内容已存在时只写入索引
+     */
+    private void store(String field, Path file) throws IOException {
+        String hash = com.google.common.io.Files.asByteSource(file.toFile()).hash(Hashing.sha256()).toString();
+        Path blob = blobPath(hash);
+        if (!Files.exists(blob)) {
+            Files.createDirectories(blob.getParent());
+            // 先写入同目录的临时文件，再原子地重命名，避免其他线程读到不完整的内容
+            Path tmp = Files.createTempFile(blob.getParent(), hash, ".tmp");
+            Files.delete(tmp);
+            try {
+                Files.createLink(tmp, file);
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                Files.copy(file, tmp);
+            }
+            Files.move(tmp, blob, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            log.info("磁盘缓存中已有相同的内容：{}", hash);
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(HASH, hash);
+        properties.setProperty(SIZE, String.valueOf(Files.size(blob)));
+        Path index = indexPath(field);
+        Files.createDirectories(index.getParent());
+        Path tmp = Files.createTempFile(index.getParent(), index.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            properties.store(out, field);
+        }
+        Files.move(tmp, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 在临时文件目录中创建指向缓存内容的硬链接，无法创建时复制
+     */
+    private File link(Path blob, Path tmpDir) throws IOException {
+        Path tmpFile = Files.createTempFile(tmpDir, "blob", ".tmp");
+        Files.delete(tmpFile);
+        try {
+            Files.createLink(tmpFile, blob);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(blob, tmpFile);
+        }
+        return tmpFile.toFile();
+    }
+
+    /**
+     * 临时文件的存放目录，先取任务定义的路径，若没有，再取整个爬虫项目的路径
+     */
+    private Path tmpDirOf(Task task) {
+        TaskDef taskDef = task.getTaskDef();
+        return Optional.ofNullable(taskDef.getTmpDir())
+                .orElseGet(() -> Optional.ofNullable(task.getController().getJob().getTmpFolder())
+                        .orElseThrow(() -> new RuntimeException("下载方式为文件，但任务定义：" + task.getTaskDefName() + "与Job均未设置临时文件路径")));
+    }
+
+    private Path blobPath(String hash) {
+        return blobDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path indexPath(String field) {
+        String hash = Hashing.sha256().hashString(field, StandardCharsets.UTF_8).toString();
+        return indexDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
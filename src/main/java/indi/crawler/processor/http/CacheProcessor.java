@@ -2,6 +2,7 @@ package indi.crawler.processor.http;
 
 import indi.crawler.processor.ProcessorContext;
 import indi.crawler.processor.ProcessorResult;
+import indi.crawler.task.Task;
 import lombok.AllArgsConstructor;
 
 /**
@@ -31,6 +32,20 @@ public abstract class CacheProcessor extends HTTPProcessor {
         return ProcessorResult.KEEP_GOING;
     }
 
+    /**
+     * 在结果处理器之前执行，此时已接收完响应
+     * 
+     * @since 2026.10.18
+     */
+    @Override
+    public ProcessorResult handleResult0(ProcessorContext iCtx) throws Throwable {
+        return handleResultByCache(iCtx);
+    }
+
+    protected ProcessorResult handleResultByCache(ProcessorContext iCtx) throws Throwable {
+        return ProcessorResult.KEEP_GOING;
+    }
+
     @Override
     public ProcessorResult afterHandleResult0(ProcessorContext iCtx) throws Throwable {
         return afterHandleResultByCache(iCtx);
@@ -39,4 +54,20 @@ public abstract class CacheProcessor extends HTTPProcessor {
     protected ProcessorResult afterHandleResultByCache(ProcessorContext iCtx) throws Throwable {
         return ProcessorResult.KEEP_GOING;
     }
+
+    /**
+     * 根据请求，生成缓存的键：优先使用任务的唯一键，否则使用任务的指纹
+     * 
+     * <p>每次处理只在发送请求前生成一次，之后从处理器上下文中获取
+     * 
+     * <p>2026.10.18 由RedisCacheProcessor移至此处，供各缓存处理器共用
+     * 
+     * <p>2026.10.18 此前拼接请求方法、地址与整个请求实体，键可能很长，且会读取请求实体的流；现改用固定长度的任务指纹
+     */
+    protected String generateField(Task task) throws Throwable {
+        if (task.getIdentityKey() != null) {
+            return task.getIdentityKey();
+        }
+        return task.getFingerprint();
+    }
 }
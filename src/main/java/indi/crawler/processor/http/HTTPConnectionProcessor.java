@@ -6,7 +6,6 @@ import java.io.InputStream;
 import java.nio.channels.Channels;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -169,15 +168,9 @@ public class HTTPConnectionProcessor extends HTTPProcessor {
         controller.checkStatus(task);
         
         List<Task> childs = task.getChilds();
-        if (childs != null) {
-            Iterator<Task> i = childs.iterator();
-            CrawlerController controller = task.getController();
-            while (i.hasNext()) {
-                if (!controller.offer(i.next())) {
-                    i.remove(); // 若无法存入上下文池（重复任务），则将其移除
-                }
-            }
-            task.setChilds(childs);
+        if (childs != null && !childs.isEmpty()) {
+            // 批量存入任务池，无法存入的任务（重复任务）不会出现在返回值中，从而被移除
+            task.setChilds(task.getController().offerAll(childs));
         }
         return ProcessorResult.CONTINUE_STAGE;
     }
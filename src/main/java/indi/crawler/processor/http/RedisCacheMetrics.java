@@ -0,0 +1,64 @@
+package indi.crawler.processor.http;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis请求缓存的统计：命中、未命中、淘汰的次数，以及写入的字节数
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+public class RedisCacheMetrics {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    /**因超出最大值大小而没有写入的次数*/
+    private final LongAdder oversized = new LongAdder();
+
+    void hit() {
+        hits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    void evicted(long count) {
+        evictions.add(count);
+    }
+
+    void written(long bytes) {
+        bytesWritten.add(bytes);
+    }
+
+    void oversized() {
+        oversized.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    public long getOversized() {
+        return oversized.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+                + ", bytesWritten=" + getBytesWritten() + ", oversized=" + getOversized();
+    }
+}
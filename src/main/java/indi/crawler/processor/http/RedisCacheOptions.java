@@ -0,0 +1,84 @@
+package indi.crawler.processor.http;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Redis请求缓存的配置，见 {@link indi.crawler.task.def.TaskDef.Builder#withRedisCache(String, RedisCacheOptions)}
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+@Getter
+@ToString
+public class RedisCacheOptions {
+    /**近端缓存的最大容量，bytes；不大于0表示不启用近端缓存*/
+    private long nearCacheMaxBytes = 0;
+    /**近端缓存的有效期，写入后开始计算*/
+    private Duration nearCacheTtl = Duration.ofMinutes(10);
+    /**Redis中缓存的有效期；为null表示永不过期*/
+    private Duration ttl;
+    /**可缓存的最大值大小（编码后），bytes；小于0表示不限制*/
+    private long maxValueBytes = -1;
+    /**Redis中所有缓存的总字节数上限，超出时淘汰最早写入的缓存；小于0表示不限制*/
+    private long evictionBudgetBytes = -1;
+
+    /**
+     * 在Redis前启用进程内的近端缓存，按字节数限制容量，超出时淘汰最近最少使用的缓存
+     *
+     * <p>近端缓存只在当前进程内有效，其他进程修改、删除Redis中的缓存后，需等到有效期结束才会生效
+     *
+     * @param maxBytes 最大容量，bytes
+     * @param ttl 有效期，写入后开始计算
+     * @return
+     */
+    public RedisCacheOptions withNearCache(long maxBytes, Duration ttl) {
+        this.nearCacheMaxBytes = maxBytes;
+        this.nearCacheTtl = ttl;
+        return this;
+    }
+
+    /**
+     * 设置Redis中缓存的有效期，写入后开始计算
+     *
+     * @param ttl 有效期；为null表示永不过期
+     * @return
+     */
+    public RedisCacheOptions withTtl(Duration ttl) {
+        this.ttl = ttl;
+        return this;
+    }
+
+    /**
+     * 设置可缓存的最大值大小，超出的响应不写入缓存
+     *
+     * @param maxValueBytes 编码后的最大字节数
+     * @return
+     */
+    public RedisCacheOptions withMaxValueBytes(long maxValueBytes) {
+        this.maxValueBytes = maxValueBytes;
+        return this;
+    }
+
+    /**
+     * 限制Redis中缓存的总字节数，写入后超出时淘汰最早写入的缓存
+     *
+     * <p>总字节数由所有使用同一个Redis的任务共享统计；已过期的缓存在被淘汰前仍计入总字节数
+     *
+     * <p>写入的脚本同时访问缓存键与淘汰预算的索引键，这些键不在同一个哈希槽中，因此启用后只能使用单节点（可带从节点）的Redis，
+     * 不适用于Redis集群
+     *
+     * @param budgetBytes 总字节数上限
+     * @return
+     */
+    public RedisCacheOptions withEvictionBudget(long budgetBytes) {
+        this.evictionBudgetBytes = budgetBytes;
+        return this;
+    }
+
+    public boolean isNearCacheEnabled() {
+        return nearCacheMaxBytes > 0;
+    }
+}
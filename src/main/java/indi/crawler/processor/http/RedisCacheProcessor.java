@@ -1,28 +1,42 @@
 package indi.crawler.processor.http;
 
 import java.io.IOException;
-import java.net.URI;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpRequestBase;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.io.ByteStreams;
 
+import indi.crawler.codec.ResponseEntityCodec;
+import indi.crawler.codec.ValueCodec;
+import indi.crawler.processor.Processor;
 import indi.crawler.processor.ProcessorContext;
 import indi.crawler.processor.ProcessorResult;
 import indi.crawler.task.CrawlerStatus;
 import indi.crawler.task.ResponseEntity;
 import indi.crawler.task.Task;
 import indi.crawler.util.RedisUtils;
-import indi.data.Pair;
 import indi.exception.WrapperException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.async.RedisAsyncCommands;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -46,10 +60,84 @@ public class RedisCacheProcessor extends CacheProcessor {
     
     private static final Lock STATIC_LOCK = new ReentrantLock();
 
+    /**旧的缓存格式：所有缓存保存在同一个哈希中，没有有效期；2026.10.18 起只读取、删除，不再写入*/
     protected static final String HKEY = "LHCF-REQUEST";
+    /**每个缓存单独一个键：前缀 + 哈希键*/
+    protected static final String KEY_PREFIX = "LHCF-REQUEST:";
+    /**淘汰预算使用的键：按写入时间排序的缓存键、各缓存的字节数、总字节数*/
+    private static final String INDEX_KEY = "LHCF-REQUEST-INDEX";
+    private static final String SIZES_KEY = "LHCF-REQUEST-SIZES";
+    private static final String BYTES_KEY = "LHCF-REQUEST-BYTES";
+
+    /**
+     * 读取缓存，一次往返；新的键中没有时读取旧的哈希
+     * 
+     * <p>KEYS[1]：缓存键；KEYS[2]：旧的哈希；ARGV[1]：旧的哈希键（见 {@link #legacyField(Task)}），可省略
+     */
+    private static final String GET_SCRIPT =
+            "local v = redis.call('GET', KEYS[1]) "
+            + "if v or not ARGV[1] then return v end "
+            + "return redis.call('HGET', KEYS[2], ARGV[1])";
+
+    /**
+     * 写入缓存并记录字节数，总字节数超出预算时按写入时间淘汰，返回淘汰的缓存键
+     * 
+     * <p>脚本只访问通过KEYS声明的键：淘汰时只删除索引中的记录，缓存键由调用方在脚本之后删除
+     * 
+     * <p>KEYS[1]：缓存键；KEYS[2..4]：见 {@link #INDEX_KEY}；ARGV[1]：值；ARGV[2]：有效期，millis，不大于0表示永不过期；
+     * ARGV[3]：当前时间；ARGV[4]：预算，bytes
+     */
+    private static final String PUT_SCRIPT =
+            "if tonumber(ARGV[2]) > 0 then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+            + "else redis.call('SET', KEYS[1], ARGV[1]) end "
+            + "local old = redis.call('HGET', KEYS[3], KEYS[1]) "
+            + "if old then redis.call('DECRBY', KEYS[4], old) end "
+            + "local size = string.len(ARGV[1]) "
+            + "redis.call('HSET', KEYS[3], KEYS[1], size) "
+            + "redis.call('ZADD', KEYS[2], ARGV[3], KEYS[1]) "
+            + "local total = redis.call('INCRBY', KEYS[4], size) "
+            + "local budget = tonumber(ARGV[4]) "
+            + "local evicted = {} "
+            + "while total > budget do "
+            + "  local oldest = redis.call('ZRANGE', KEYS[2], 0, 0) "
+            + "  if #oldest == 0 or oldest[1] == KEYS[1] then break end "
+            + "  local key = oldest[1] "
+            + "  local s = tonumber(redis.call('HGET', KEYS[3], key) or '0') "
+            + "  redis.call('ZREM', KEYS[2], key) "
+            + "  redis.call('HDEL', KEYS[3], key) "
+            + "  total = redis.call('DECRBY', KEYS[4], s) "
+            + "  evicted[#evicted + 1] = key "
+            + "end "
+            + "return evicted";
+
+    /**
+     * 删除缓存，包括旧的哈希中的缓存与淘汰预算的记录
+     * 
+     * <p>KEYS[1]：缓存键；KEYS[2]：旧的哈希；KEYS[3..5]：见 {@link #INDEX_KEY}；ARGV[1]：旧的哈希键，可省略
+     */
+    private static final String EVICT_SCRIPT =
+            "redis.call('DEL', KEYS[1]) "
+            + "if ARGV[1] then redis.call('HDEL', KEYS[2], ARGV[1]) end "
+            + "local size = redis.call('HGET', KEYS[4], KEYS[1]) "
+            + "if size then "
+            + "  redis.call('DECRBY', KEYS[5], size) "
+            + "  redis.call('HDEL', KEYS[4], KEYS[1]) "
+            + "  redis.call('ZREM', KEYS[3], KEYS[1]) "
+            + "end "
+            + "return 0";
+    
+    /**响应实体的编解码器；2026.10.18 此前为Java序列化，现改为二进制编码，并兼容读取旧的缓存*/
+    protected ValueCodec<ResponseEntity> responseCodec = ResponseEntityCodec.DEFAULT;
+    
+    protected RedisCacheOptions options = new RedisCacheOptions();
+    /**进程内的近端缓存，位于Redis之前；未启用时为null*/
+    private Cache<String, ResponseEntity> nearCache;
+    private final RedisCacheMetrics metrics = new RedisCacheMetrics();
 
     protected void init(String redisURI) {
         this.redisURI = redisURI;
+        // 处理器没有生命周期，一直持有连接，爬虫任务结束时不会关闭缓存所用的连接（2026.10.18）
+        RedisUtils.retain(redisURI);
 //        // 初始化redisLock，确保使用同一个Redis的对象共用同一个锁
 //        STATIC_LOCK.lock();
 //        try {
@@ -74,147 +162,254 @@ public class RedisCacheProcessor extends CacheProcessor {
     }
 
     /**
-     * 检测是否有缓存当前请求，有则不执行其他拦截器，不发送请求
+     * @since 2026.10.18
      */
-    @Override
-    public ProcessorResult executeRequestByCache(ProcessorContext iCtx) throws Throwable {
-        Task ctx = iCtx.getCrawlerContext();
-        String field = generateField(ctx);
-        if (isCached(field)) {
-            log.info("该任务已缓存，不再发送请求 {} {}", ctx.getTaskDef().getName(), ctx.getUri());
-            return ProcessorResult.CONTINUE_STAGE;// 跳过其他拦截器（不需要发送请求）
+    public RedisCacheProcessor(String redisURI, RedisCacheOptions options) {
+        init(redisURI);
+        this.options = options;
+        if (options.isNearCacheEnabled()) {
+            nearCache = CacheBuilder.newBuilder()
+                    .maximumWeight(options.getNearCacheMaxBytes())
+                    .weigher(RedisCacheProcessor::weigh)
+                    .expireAfterWrite(options.getNearCacheTtl().toMillis(), TimeUnit.MILLISECONDS)
+                    .recordStats()
+                    .build();
+        }
+    }
+
+    /**
+     * 估算近端缓存中一个缓存占用的字节数；临时文件类型只缓存文件路径
+     */
+    private static int weigh(String field, ResponseEntity entity) {
+        long size = field.length() * 2L;
+        if (entity.getType() == ResponseEntity.TYPE.TMP_FILE) {
+            size += entity.getContent().toString().length() * 2L;
         } else {
-            log.info("该任务尚未缓存，将缓存请求 {} {}", ctx.getTaskDef().getName(), ctx.getUri());
-            return ProcessorResult.KEEP_GOING;
+            size += entity.size();
         }
+        return (int) Math.min(size, Integer.MAX_VALUE);
     }
-    
-    /**本线程上次使用的哈希键*/
-    private static final ThreadLocal<Pair<HttpRequestBase, String>> lastRequestFieldThreadLocal = new ThreadLocal<>();
 
     /**
-     * 根据请求，生成Redis的哈希键
+     * 近端缓存的统计，未启用近端缓存时返回null
      * 
-     * <p>该方法的执行非常频繁，需要特别注意效率
+     * @since 2026.10.18
      */
-    protected String generateField(Task task) throws Throwable {
-        
+    public CacheStats getNearCacheStats() {
+        return nearCache == null ? null : nearCache.stats();
+    }
+
+    /**
+     * 缓存的统计，命中包括近端缓存的命中
+     * 
+     * @since 2026.10.18
+     */
+    public RedisCacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 删除任务的缓存（如缓存的响应有误时），对任务定义及爬虫工程中的所有Redis缓存处理器生效
+     * 
+     * <p>2026.10.18 缓存改为每个缓存一个键，不能再直接删除哈希中的键，需改用该方法
+     * 
+     * @since 2026.10.18
+     */
+    public static void evict(Task task) {
+        // 与处理器链相同，先任务级别，再工程级别
+        List<Processor> processors = new ArrayList<>(task.getTaskDef().getCustomProcessors());
+        if (task.getController() != null) {
+            processors.addAll(task.getController().getJob().getCustomProcessors());
+        }
+        for (Processor processor : processors) {
+            if (processor instanceof RedisCacheProcessor) {
+                ((RedisCacheProcessor) processor).evict0(task);
+            }
+        }
+    }
+
+    protected void evict0(Task task) {
+        String field;
+        byte[][] legacy;
+        try {
+            field = generateField(task);
+            legacy = legacyArgs(task);
+        } catch (Throwable e) {
+            throw new WrapperException(e);
+        }
+        if (nearCache != null) {
+            nearCache.invalidate(field);
+        }
+        try {
+            RedisUtils.getAsyncBytesCommands(redisURI).eval(EVICT_SCRIPT, ScriptOutputType.INTEGER,
+                    new String[] { KEY_PREFIX + field, HKEY, INDEX_KEY, SIZES_KEY, BYTES_KEY }, legacy).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new WrapperException(e);
+        }
+    }
+
+    private static byte[] toBytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 旧的哈希中的键：优先使用任务的唯一键，否则拼接请求方法、地址与请求实体（与旧版本相同，按默认字符集解码）；
+     * 请求实体不可重复读取时返回null，不再读取旧的缓存
+     * 
+     * <p>2026.10.18 缓存键改为任务指纹（见 {@link CacheProcessor#generateField(Task)}），该方法只用于读取、删除旧的缓存
+     */
+    private static String legacyField(Task task) throws IOException {
         if (task.getIdentityKey() != null) {
             return task.getIdentityKey();
         }
-        
         HttpRequestBase request = task.getRequest();
-        // 1. 尝试通过ThreadLocal缓存直接获取哈希键
-        Pair<HttpRequestBase, String> pair = lastRequestFieldThreadLocal.get();
-        if (pair != null && request.equals(pair.getFirst())) {
-            String lastField = pair.getSecond();
-            if (lastField != null) {
-                return lastField;
+        StringBuilder sb = new StringBuilder().append(request.getMethod()).append(request.getURI());
+        if (request instanceof HttpEntityEnclosingRequestBase) {
+            HttpEntity entity = ((HttpEntityEnclosingRequestBase) request).getEntity();
+            if (entity != null) {
+                if (!entity.isRepeatable()) {
+                    return null;
+                }
+                try (InputStream in = entity.getContent()) {
+                    sb.append(new String(ByteStreams.toByteArray(in)));
+                }
             }
         }
-        // 2. gen field
-        // with plain url
-        URI uri = request.getURI();
-        StringBuilder sb = new StringBuilder().append(request.getMethod()).append(uri);
-        // with request body
-        if (request instanceof HttpEntityEnclosingRequestBase) {
-            // 若请求携带请求实体（方法是POST/PUT），则生成的Field将包含该实体的信息
-            HttpEntityEnclosingRequestBase entityRequest = (HttpEntityEnclosingRequestBase) request;
-            Optional.ofNullable(entityRequest.getEntity())
-                    .map(entity -> {
-                        try {
-                            return entity.getContent();
-                        } catch (UnsupportedOperationException | IOException e) {
-                            throw new WrapperException(e);
-                        }
-                    })
-                    .map(inStream -> {
-                        try {
-                            return ByteStreams.toByteArray(inStream);
-                        } catch (Exception e) {
-                            throw new WrapperException(e);
-                        } finally {
-                            try {
-                                inStream.close();
-                            } catch (IOException e) {
-                                throw new WrapperException(e);
-                            }
-                        }
-                    })
-                    .map(bytes -> new String(bytes))// TODO: sure ?
-                    .ifPresent(sb::append);
-        }
-        String field = sb.toString();
-        // 3. set thread local cache
-        lastRequestFieldThreadLocal.set(Pair.of(request, field));
-        return field;
+        return sb.toString();
     }
-    
+
+    /**
+     * 脚本中旧的哈希键的参数，没有时为空
+     */
+    private static byte[][] legacyArgs(Task task) throws IOException {
+        String legacy = legacyField(task);
+        return legacy == null ? new byte[0][] : new byte[][] { toBytes(legacy) };
+    }
+
+    /**处理器上下文中缓存键的属性名*/
+    private static final String FIELD_ATTRIBUTE = RedisCacheProcessor.class.getName() + ".field";
+    /**处理器上下文中命中的缓存的属性名*/
+    private static final String CACHED_ATTRIBUTE = RedisCacheProcessor.class.getName() + ".cached";
+
+    /**
+     * 检测是否有缓存当前请求，有则不执行其他拦截器，不发送请求
+     * 
+     * <p>2026.10.18 此前先后调用两次hexists、一次hget，每次都阻塞等待；现只调用一次hget，并将结果保存在处理器上下文中，供之后的阶段使用
+     * 
+     * <p>2026.10.18 若启用了近端缓存，先查询近端缓存，未命中再查询Redis，并将Redis中的缓存放入近端缓存
+     * 
+     * <p>2026.10.18 每个缓存单独一个键，以便设置有效期；仍兼容读取旧的哈希中的缓存（按旧的哈希键读取）
+     */
     @Override
-    public ProcessorResult receiveResponseByCache(ProcessorContext iCtx) throws Throwable {
+    public ProcessorResult executeRequestByCache(ProcessorContext iCtx) throws Throwable {
         Task ctx = iCtx.getCrawlerContext();
         String field = generateField(ctx);
-        if (isCached(field)) {
-            // 若有缓存该请求，则直接从缓存获取响应
-            ResponseEntity responseEntity;
-            responseEntity = (ResponseEntity) RedisUtils.getAsyncCommands(redisURI).hget(HKEY, field).get();
-            
-            if (responseEntity != null) {
-                log.info("  从Redis缓存中获取数据：{} {}", ctx.getTaskDef().getName(), ctx.getUri());
-                ctx.setResponseEntity(responseEntity);
-                return ProcessorResult.CONTINUE_STAGE;// stop receive response
-            } else {
-                log.error("从Redis中检测到缓存，但无法访问：{} {}", ctx.getTaskDef().getName(), ctx.getUri());
-                throw new WrapperException("从Redis中检测到缓存，但无法访问");
+        iCtx.setAttribute(FIELD_ATTRIBUTE, field);
+        ResponseEntity cached = nearCache == null ? null : nearCache.getIfPresent(field);
+        if (cached == null) {
+            byte[] bytes = RedisUtils.getAsyncBytesCommands(redisURI).<byte[]>eval(GET_SCRIPT, ScriptOutputType.VALUE,
+                    new String[] { KEY_PREFIX + field, HKEY }, legacyArgs(ctx)).get();
+            cached = bytes == null ? null : responseCodec.decode(bytes);
+            if (cached != null && nearCache != null) {
+                nearCache.put(field, cached);
             }
         }
+        if (cached != null) {
+            log.info("该任务已缓存，不再发送请求 {} {}", ctx.getTaskDef().getName(), ctx.getUri());
+            iCtx.setAttribute(CACHED_ATTRIBUTE, cached);
+            metrics.hit();
+            return ProcessorResult.CONTINUE_STAGE;// 跳过其他拦截器（不需要发送请求）
+        } else {
+            log.info("该任务尚未缓存，将缓存请求 {} {}", ctx.getTaskDef().getName(), ctx.getUri());
+            metrics.miss();
+            return ProcessorResult.KEEP_GOING;
+        }
+    }
+
+    @Override
+    public ProcessorResult receiveResponseByCache(ProcessorContext iCtx) throws Throwable {
+        Task ctx = iCtx.getCrawlerContext();
+        ResponseEntity responseEntity = iCtx.getAttribute(CACHED_ATTRIBUTE);
+        if (responseEntity != null) {
+            // 若有缓存该请求，则直接使用发送请求前取得的响应
+            log.info("  从Redis缓存中获取数据：{} {}", ctx.getTaskDef().getName(), ctx.getUri());
+            ctx.setResponseEntity(responseEntity);
+            return ProcessorResult.CONTINUE_STAGE;// stop receive response
+        }
         // 若没有缓存，则继续后续步骤
         return ProcessorResult.KEEP_GOING;
     }
 
+    /**
+     * 异步写入缓存，不阻塞爬虫线程；各线程的写入共用同一个连接，由lettuce自动合并发送
+     */
     @Override
     public ProcessorResult afterHandleResultByCache(ProcessorContext iCtx) throws Throwable {
         Task ctx = iCtx.getCrawlerContext();
-        String field = generateField(ctx);
-        if (!isCached(field)) {
+        String field = iCtx.getAttribute(FIELD_ATTRIBUTE);
+        if (field != null && iCtx.getAttribute(CACHED_ATTRIBUTE) == null) {
             List<Throwable> throwables = ctx.getThrowables();
             // 若没有缓存过该请求、响应不为空且没有发生过异常，则缓存该请求实体
             CrawlerStatus status = ctx.getStatus();
             if (ctx.getResponse() != null && (throwables == null || throwables.isEmpty())
                     && (status.equals(CrawlerStatus.FINISHED) || status.equals(CrawlerStatus.RUNNING))) {
-                ResponseEntity responseEntity = ctx.getResponseEntity();
-                
                 log.info("添加新缓存：{} {}", ctx.getTaskDef().getName(), ctx.getUri());
-                RedisUtils.getAsyncCommands(redisURI).hset(HKEY, field, responseEntity).get();
-                
-//                redisLock.lock();
-//                try {
-//                } finally {
-//                    redisLock.unlock();
-//                }
+                put(field, ctx.getResponseEntity());
             }
         }
 
         // 进行后续步骤
         return ProcessorResult.KEEP_GOING;
     }
-    
-    ThreadLocal<Pair<String, Boolean>>  isFieldCachedThreadLocal = new ThreadLocal<>();
-    
-    protected boolean isCached(String field) {
-        Pair<String, Boolean> pair = isFieldCachedThreadLocal.get();
-        if (pair != null && field.equals(pair.getFirst())) {
-            return pair.getSecond();
+
+    /**
+     * 异步写入缓存；超出最大值大小时不写入
+     */
+    private void put(String field, ResponseEntity responseEntity) {
+        byte[] bytes = responseCodec.encode(responseEntity);
+        long maxValueBytes = options.getMaxValueBytes();
+        if (maxValueBytes >= 0 && bytes.length > maxValueBytes) {
+            log.info("响应过大，不缓存：{} bytes {}", bytes.length, field);
+            metrics.oversized();
+            return;
+        }
+        if (nearCache != null) {
+            nearCache.put(field, responseEntity);
+        }
+        String key = KEY_PREFIX + field;
+        long ttlMillis = Optional.ofNullable(options.getTtl()).map(Duration::toMillis).orElse(0L);
+        RedisAsyncCommands<String, byte[]> commands = RedisUtils.getAsyncBytesCommands(redisURI);
+        if (options.getEvictionBudgetBytes() >= 0) {
+            RedisFuture<List<Object>> future = commands.eval(PUT_SCRIPT, ScriptOutputType.MULTI,
+                    new String[] { key, INDEX_KEY, SIZES_KEY, BYTES_KEY }, bytes, toBytes(ttlMillis),
+                    toBytes(System.currentTimeMillis()), toBytes(options.getEvictionBudgetBytes()));
+            future.whenComplete((evicted, t) -> {
+                if (t == null && !evicted.isEmpty()) {
+                    // 删除已从索引中淘汰的缓存键
+                    String[] keys = new String[evicted.size()];
+                    for (int i = 0; i < keys.length; i++) {
+                        keys[i] = new String((byte[]) evicted.get(i), StandardCharsets.UTF_8);
+                    }
+                    commands.del(keys);
+                }
+                afterPut(field, bytes.length, t == null ? (long) evicted.size() : 0L, t);
+            });
         } else {
-            boolean isCached = false;
-            try {
-                isCached = RedisUtils.getAsyncCommands(redisURI).hexists(HKEY, field).get();
-            } catch (InterruptedException | ExecutionException e) {
-                e.printStackTrace();
-            }
-            isFieldCachedThreadLocal.set(Pair.of(field, isCached));
-            return isCached;
+            RedisFuture<String> future = ttlMillis > 0 ? commands.set(key, bytes, SetArgs.Builder.px(ttlMillis))
+                    : commands.set(key, bytes);
+            future.whenComplete((result, t) -> afterPut(field, bytes.length, 0L, t));
         }
     }
 
+    private void afterPut(String field, int size, Long evicted, Throwable t) {
+        if (t != null) {
+            log.error("添加缓存失败：" + field, t);
+            return;
+        }
+        metrics.written(size);
+        if (evicted != null && evicted > 0) {
+            log.info("超出缓存预算，已淘汰{}个缓存", evicted);
+            metrics.evicted(evicted);
+        }
+    }
 }
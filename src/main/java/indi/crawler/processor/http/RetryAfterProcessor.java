@@ -0,0 +1,128 @@
+package indi.crawler.processor.http;
+
+import java.util.Date;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.util.EntityUtils;
+
+import indi.crawler.exception.RetryLaterException;
+import indi.crawler.processor.ProcessorContext;
+import indi.crawler.processor.ProcessorResult;
+import indi.crawler.task.CrawlerController;
+import indi.crawler.task.Task;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 遵循服务器的限流响应头的处理器，默认添加在连接处理器之前
+ *
+ * <p>响应码为429/503时，解析Retry-After（秒数或HTTP日期）与常见的X-RateLimit-*响应头，算出允许重试的时间，结束响应并抛出
+ * {@link RetryLaterException}，由异常处理器将任务准确地延期，并暂停该主机的其他任务（服务器没有给出时间时只延期当前任务）；
+ * 响应正常但剩余配额为0时，暂停该主机直至配额重置
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+@Slf4j
+public class RetryAfterProcessor extends HTTPProcessor {
+    private static final String RETRY_AFTER = "Retry-After";
+    private static final String[] REMAINING_HEADERS = { "X-RateLimit-Remaining", "RateLimit-Remaining" };
+    private static final String[] RESET_HEADERS = { "X-RateLimit-Reset", "RateLimit-Reset", "X-RateLimit-Reset-After" };
+    /** 大于该值的重置时间视为纪元秒，否则视为秒数 */
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    private CrawlerController controller;
+
+    public RetryAfterProcessor(CrawlerController controller) {
+        this.controller = controller;
+    }
+
+    @Override
+    protected ProcessorResult receiveResponse0(ProcessorContext pCtx) throws Throwable {
+        Task task = pCtx.getCrawlerContext();
+        HttpResponse response = task.getResponse();
+        if (response == null) {
+            return ProcessorResult.KEEP_GOING;
+        }
+        String host = task.getHost();
+        long now = System.currentTimeMillis();
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode == 429 || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+            long retryAt = parseRetryAt(response, now);
+            String pausedHost = host;
+            if (retryAt <= now) {
+                // 服务器没有给出时间，按任务的重试间隔只延期当前任务，不暂停主机
+                retryAt = now + task.getRetryDeferrals();
+                pausedHost = null;
+            }
+            // 结束响应，释放连接
+            EntityUtils.consumeQuietly(response.getEntity());
+            throw new RetryLaterException(retryAt, pausedHost,
+                    "服务器要求稍后重试：" + response.getStatusLine() + "，重试时间：" + new Date(retryAt));
+        }
+        // 剩余配额为0时，暂停该主机直至配额重置
+        if (host != null && isQuotaExhausted(response)) {
+            long resetAt = parseReset(response, now);
+            if (resetAt > now) {
+                log.info("主机 {} 的配额已耗尽，暂停至 {}", host, new Date(resetAt));
+                controller.pauseHost(host, resetAt);
+            }
+        }
+        return ProcessorResult.KEEP_GOING;
+    }
+
+    /**
+     * 优先解析Retry-After，没有则解析配额重置时间
+     *
+     * @return 允许重试的时间，millis；无法解析时返回-1
+     */
+    static long parseRetryAt(HttpResponse response, long now) {
+        Header header = response.getFirstHeader(RETRY_AFTER);
+        if (header != null) {
+            String value = header.getValue().trim();
+            try {
+                return now + Long.parseLong(value) * 1000;
+            } catch (NumberFormatException e) {
+                Date date = DateUtils.parseDate(value);
+                if (date != null) {
+                    return date.getTime();
+                }
+                log.warn("无法解析Retry-After：{}", value);
+            }
+        }
+        return parseReset(response, now);
+    }
+
+    /**
+     * 解析配额重置时间，兼容纪元秒与秒数两种形式
+     *
+     * @return millis；无法解析时返回-1
+     */
+    static long parseReset(HttpResponse response, long now) {
+        for (String name : RESET_HEADERS) {
+            Header header = response.getFirstHeader(name);
+            if (header == null) {
+                continue;
+            }
+            try {
+                double value = Double.parseDouble(header.getValue().trim());
+                return value > EPOCH_SECONDS_THRESHOLD ? (long) (value * 1000) : now + (long) (value * 1000);
+            } catch (NumberFormatException e) {
+                log.warn("无法解析{}：{}", name, header.getValue());
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isQuotaExhausted(HttpResponse response) {
+        for (String name : REMAINING_HEADERS) {
+            Header header = response.getFirstHeader(name);
+            if (header != null) {
+                return "0".equals(header.getValue().trim());
+            }
+        }
+        return false;
+    }
+}
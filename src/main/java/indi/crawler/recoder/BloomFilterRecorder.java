@@ -0,0 +1,72 @@
+package indi.crawler.recoder;
+
+import indi.crawler.task.Task;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于可扩容布隆过滤器的爬虫任务记录器，按任务指纹（规范化的地址、请求方法、请求实体）记录
+ *
+ * <p>每个任务约占用10bit（误判率1%时），5千万个任务约60MB。布隆过滤器存在误判，即可能将没有执行过的任务判断为已执行；
+ * 可指定一个精确的记录器进行确认：布隆过滤器判断为可能已执行时，再由精确的记录器判断，代价是所有任务都要写入精确的记录器
+ *
+ * <p>不支持删除记录，{@link #removeRecord(Task)} 只删除精确的记录器中的记录
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+@Slf4j
+public class BloomFilterRecorder implements Recorder {
+    private final ScalableBloomFilter filter;
+    /**用于确认的精确记录器，为null表示不确认*/
+    private final Recorder confirmer;
+
+    /**
+     * @param expectedInsertions 预期的任务数，超出后自动扩容
+     * @param fpp 误判率，如0.01
+     */
+    public BloomFilterRecorder(long expectedInsertions, double fpp) {
+        this(expectedInsertions, fpp, null);
+    }
+
+    /**
+     * @param expectedInsertions 预期的任务数，超出后自动扩容
+     * @param fpp 误判率，如0.01
+     * @param confirmer 用于确认的精确记录器
+     */
+    public BloomFilterRecorder(long expectedInsertions, double fpp, Recorder confirmer) {
+        this.filter = new ScalableBloomFilter(expectedInsertions, fpp);
+        this.confirmer = confirmer;
+        log.info("使用布隆过滤器记录任务，预期任务数：{}，误判率：{}，精确确认：{}", expectedInsertions, fpp, confirmer != null);
+    }
+
+    @Override
+    public boolean chechAndRecord(Task ctx) {
+        boolean added = filter.put(ctx.getFingerprint());
+        if (confirmer == null) {
+            return !added;
+        }
+        if (added) {
+            // 一定没有执行过，但仍需写入精确的记录器，以便之后确认
+            confirmer.chechAndRecord(ctx);
+            return false;
+        }
+        return confirmer.chechAndRecord(ctx);
+    }
+
+    @Override
+    public boolean checkRecord(Task ctx) {
+        if (!filter.mightContain(ctx.getFingerprint())) {
+            return false;
+        }
+        return confirmer == null || confirmer.checkRecord(ctx);
+    }
+
+    @Override
+    public boolean removeRecord(Task ctx) {
+        return confirmer != null && confirmer.removeRecord(ctx);
+    }
+
+    public ScalableBloomFilter getFilter() {
+        return filter;
+    }
+}
@@ -1,39 +1,39 @@
 package indi.crawler.recoder;
 
-import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import indi.crawler.task.Task;
 
 /**
- * 爬虫任务记录器，用于判断是否执行过爬虫任务。该类通过记录Task的哈希值实现
+ * 爬虫任务记录器，用于判断是否执行过爬虫任务。该类通过记录Task的指纹实现
+ * 
+ * <p>2026.10.18 此前记录Task的hashCode，而Task没有重写hashCode，相同的任务也不会被判断为重复；现改为记录任务指纹，
+ * 并用并发集合代替同步的HashSet。该类精确记录所有指纹，任务数很多时应使用 {@link BloomFilterRecorder}
  * 
  * @author wzh
  * @since 2020.01.18
  */
 public class CommonRecorder implements Recorder {
-    private HashSet<Integer> records;
+    private Set<String> records;
 
     public CommonRecorder() {
-        records = new HashSet<>();
+        records = ConcurrentHashMap.newKeySet();
     }
 
     @Override
-    public synchronized boolean chechAndRecord(Task ctx) {
-        // 仅缓存hashCode，以降低内存占用
-        if (records.contains(ctx.hashCode())) {
-            return false;
-        }
-        return records.add(ctx.hashCode());
+    public boolean chechAndRecord(Task ctx) {
+        return !records.add(ctx.getFingerprint());
     }
 
     @Override
-    public synchronized boolean checkRecord(Task ctx) {
-        return records.contains(ctx.hashCode());
+    public boolean checkRecord(Task ctx) {
+        return records.contains(ctx.getFingerprint());
     }
 
     @Override
-    public synchronized boolean removeRecord(Task ctx) {
-        return records.remove(ctx.hashCode());
+    public boolean removeRecord(Task ctx) {
+        return records.remove(ctx.getFingerprint());
     }
 
 }
@@ -0,0 +1,539 @@
+package indi.crawler.recoder;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import indi.crawler.task.Task;
+import indi.exception.WrapperException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 持久化到磁盘的爬虫任务记录器，重启后仍保留记录，按任务指纹记录
+ *
+ * <p>由三部分组成，查询时按从新到旧的顺序：
+ * <ol>
+ * <li>内存表：自上次压缩以来的记录与删除，同时追加写入日志文件（log.dat），每条记录17字节：操作 + 128位指纹
+ * <li>压缩中的内存表：压缩期间冻结的上一个内存表，对应日志文件log.compacting
+ * <li>索引：排好序的指纹（index-代数.dat），通过内存映射读取、二分查找，启动时无需加载
+ * </ol>
+ *
+ * <p>内存表的记录数超过阈值时，由后台线程将其与索引归并为下一代索引，写完后原子地重命名并切换。
+ * 由于Windows下不能删除仍被映射的文件，旧索引删除失败时留到下次启动再删除。
+ * 启动时只需读取尚未压缩的日志；压缩中途宕机时，日志仍在，重启后会重新压缩
+ *
+ * <p>压缩由本记录器持有的单个后台线程执行，同一时间只有一个压缩；{@link #close()} 时等待正在执行的压缩完成
+ *
+ * <p>日志只写入操作系统的缓存，{@link #close()} 时才强制刷盘，因此断电时可能丢失最近的记录（将重复执行这些任务）
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+@Slf4j
+public class PersistentRecorder implements Recorder, Closeable {
+    private static final String INDEX_PREFIX = "index-";
+    private static final String INDEX_SUFFIX = ".dat";
+    private static final String LOG_FILE = "log.dat";
+    private static final String COMPACTING_LOG_FILE = "log.compacting";
+    private static final int RECORD_SIZE = 17;
+    private static final byte OP_REMOVE = 0;
+    private static final byte OP_ADD = 1;
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 500_000;
+
+    private final Path dir;
+    private final int compactionThreshold;
+    /**保护内存表、日志与索引的切换；查询索引时也需持有，以确保查询时索引没有被替换*/
+    private final ReentrantLock lock = new ReentrantLock();
+    /**压缩时持有，确保同一时间只有一个压缩，且关闭时不会有正在执行的压缩*/
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    /**是否已提交了后台压缩，避免重复提交*/
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    /**执行后台压缩的线程，空闲一段时间后自动结束*/
+    private final ThreadPoolExecutor compactor;
+    /**是否已关闭，需持有压缩锁修改*/
+    private volatile boolean closed;
+
+    /**指纹 -> 是否存在（false表示已删除）*/
+    private Map<Fingerprint, Boolean> active;
+    private Map<Fingerprint, Boolean> frozen;
+    private FileChannel logChannel;
+    private SortedIndex index;
+    /**当前索引的代数，每次压缩加1；0表示还没有索引*/
+    private long generation;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+
+    public PersistentRecorder(Path dir) {
+        this(dir, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * @param dir 存放记录的目录
+     * @param compactionThreshold 内存表的记录数超过该值时压缩
+     */
+    public PersistentRecorder(Path dir, int compactionThreshold) {
+        this.dir = dir;
+        this.compactionThreshold = compactionThreshold;
+        compactor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "PersistentRecorder-Compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.allowCoreThreadTimeOut(true);
+        try {
+            Files.createDirectories(dir);
+            openLatestIndex();
+            active = new ConcurrentHashMap<>();
+            // 先读取上次压缩未完成的日志，再读取之后的日志，后者较新
+            Path compactingLog = dir.resolve(COMPACTING_LOG_FILE);
+            Map<Fingerprint, Boolean> uncompacted = new HashMap<>();
+            if (Files.exists(compactingLog)) {
+                load(compactingLog, uncompacted);
+                active.putAll(uncompacted);
+            }
+            Map<Fingerprint, Boolean> current = new HashMap<>();
+            load(dir.resolve(LOG_FILE), current);
+            active.putAll(current);
+            logChannel = FileChannel.open(dir.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            if (Files.exists(compactingLog)) {
+                // 将未压缩完的日志并入当前日志，再重新压缩；只追加当前日志中没有的记录，当前日志中的记录已在日志中且较新
+                for (Map.Entry<Fingerprint, Boolean> entry : uncompacted.entrySet()) {
+                    if (!current.containsKey(entry.getKey())) {
+                        append(entry.getKey(), entry.getValue());
+                    }
+                }
+                logChannel.force(false);
+                Files.delete(compactingLog);
+            }
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        }
+        log.info("使用持久化的任务记录器：{}，索引中的记录数：{}，日志中的记录数：{}", dir, index.size(), active.size());
+        compactIfNeeded();
+    }
+
+    /**
+     * 打开最新一代的索引，并删除其他的索引
+     */
+    private void openLatestIndex() throws IOException {
+        List<Path> indexFiles = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, INDEX_PREFIX + "*")) {
+            for (Path file : stream) {
+                indexFiles.add(file);
+            }
+        }
+        generation = 0;
+        for (Path file : indexFiles) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(INDEX_SUFFIX)) {
+                generation = Math.max(generation,
+                        Long.parseLong(name.substring(INDEX_PREFIX.length(), name.length() - INDEX_SUFFIX.length())));
+            }
+        }
+        Path latest = indexFile(generation);
+        for (Path file : indexFiles) {
+            if (!file.equals(latest)) {
+                Files.deleteIfExists(file);// 旧的索引或写了一半的临时文件
+            }
+        }
+        index = SortedIndex.open(latest);
+    }
+
+    private Path indexFile(long generation) {
+        return dir.resolve(INDEX_PREFIX + generation + INDEX_SUFFIX);
+    }
+
+    /**
+     * 读取日志，忽略末尾不完整的记录（写入时宕机）
+     */
+    private static void load(Path logFile, Map<Fingerprint, Boolean> table) throws IOException {
+        if (!Files.exists(logFile)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long complete = channel.size() / RECORD_SIZE * RECORD_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+            long position = 0;
+            while (position < complete) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), complete - position));
+                while (buffer.hasRemaining()) {
+                    channel.read(buffer, position + buffer.position());
+                }
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    byte op = buffer.get();
+                    table.put(new Fingerprint(buffer.getLong(), buffer.getLong()), op == OP_ADD);
+                }
+                position += buffer.limit();
+            }
+            if (channel.size() != complete) {
+                log.warn("日志末尾有不完整的记录，已截断：{}", logFile);
+                channel.truncate(complete);
+            }
+        }
+    }
+
+    private void append(Fingerprint fingerprint, boolean add) throws IOException {
+        recordBuffer.clear();
+        recordBuffer.put(add ? OP_ADD : OP_REMOVE).putLong(fingerprint.hi).putLong(fingerprint.lo);
+        recordBuffer.flip();
+        while (recordBuffer.hasRemaining()) {
+            logChannel.write(recordBuffer);
+        }
+    }
+
+    /**
+     * 查询指纹是否存在，需持有锁
+     */
+    private boolean contains0(Fingerprint fingerprint) {
+        Boolean present = active.get(fingerprint);
+        if (present == null && frozen != null) {
+            present = frozen.get(fingerprint);
+        }
+        if (present != null) {
+            return present;
+        }
+        return index.contains(fingerprint);
+    }
+
+    /**
+     * 若没有记录，则添加记录并返回false，若有记录，则返回true
+     */
+    public boolean checkAndRecord(String fingerprint) {
+        Fingerprint fp = Fingerprint.parse(fingerprint);
+        lock.lock();
+        try {
+            if (contains0(fp)) {
+                return true;
+            }
+            append(fp, true);
+            active.put(fp, Boolean.TRUE);
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        } finally {
+            lock.unlock();
+        }
+        compactIfNeeded();
+        return false;
+    }
+
+    public boolean contains(String fingerprint) {
+        Fingerprint fp = Fingerprint.parse(fingerprint);
+        lock.lock();
+        try {
+            return contains0(fp);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除记录
+     *
+     * @return 删除前是否有记录
+     */
+    public boolean remove(String fingerprint) {
+        Fingerprint fp = Fingerprint.parse(fingerprint);
+        lock.lock();
+        try {
+            if (!contains0(fp)) {
+                return false;
+            }
+            append(fp, false);
+            active.put(fp, Boolean.FALSE);
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        } finally {
+            lock.unlock();
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    @Override
+    public boolean chechAndRecord(Task ctx) {
+        return checkAndRecord(ctx.getFingerprint());
+    }
+
+    @Override
+    public boolean checkRecord(Task ctx) {
+        return contains(ctx.getFingerprint());
+    }
+
+    @Override
+    public boolean removeRecord(Task ctx) {
+        return remove(ctx.getFingerprint());
+    }
+
+    private void compactIfNeeded() {
+        if (active.size() >= compactionThreshold && compacting.compareAndSet(false, true)) {
+            try {
+                compactor.execute(() -> {
+                    try {
+                        compact();
+                    } catch (RuntimeException e) {
+                        log.error("压缩任务记录失败", e);
+                    } finally {
+                        compacting.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                compacting.set(false);// 已关闭
+            }
+        }
+    }
+
+    /**
+     * 立即压缩，将当前的内存表并入索引；正在压缩时等待其完成后再压缩。已关闭时不做任何事
+     */
+    public void compact() {
+        compactionLock.lock();
+        try {
+            if (!closed) {
+                compact0();
+            }
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    private void compact0() throws IOException {
+        Path logFile = dir.resolve(LOG_FILE);
+        Path compactingLog = dir.resolve(COMPACTING_LOG_FILE);
+        SortedIndex oldIndex;
+        // 1. 冻结内存表，切换日志
+        lock.lock();
+        try {
+            if (active.isEmpty()) {
+                return;
+            }
+            logChannel.force(false);
+            logChannel.close();
+            Files.move(logFile, compactingLog, StandardCopyOption.ATOMIC_MOVE);
+            logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            frozen = active;
+            active = new ConcurrentHashMap<>();
+            oldIndex = index;
+        } finally {
+            lock.unlock();
+        }
+        long start = System.currentTimeMillis();
+        // 2. 归并冻结的内存表与旧索引，写入新索引
+        TreeMap<Fingerprint, Boolean> sorted = new TreeMap<>(frozen);
+        long nextGeneration = generation + 1;
+        Path tmp = dir.resolve(INDEX_PREFIX + nextGeneration + ".tmp");
+        long count = 0;
+        try (OutputStream fileOut = Files.newOutputStream(tmp);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+            Iterator<Map.Entry<Fingerprint, Boolean>> changes = sorted.entrySet().iterator();
+            Map.Entry<Fingerprint, Boolean> change = changes.hasNext() ? changes.next() : null;
+            for (long i = 0; i < oldIndex.size(); i++) {
+                Fingerprint existing = oldIndex.get(i);
+                while (change != null && change.getKey().compareTo(existing) < 0) {
+                    count += writeIfPresent(out, change);
+                    change = changes.hasNext() ? changes.next() : null;
+                }
+                if (change != null && change.getKey().equals(existing)) {
+                    count += writeIfPresent(out, change);// 以内存表中的操作为准
+                    change = changes.hasNext() ? changes.next() : null;
+                } else {
+                    out.writeLong(existing.hi);
+                    out.writeLong(existing.lo);
+                    count++;
+                }
+            }
+            while (change != null) {
+                count += writeIfPresent(out, change);
+                change = changes.hasNext() ? changes.next() : null;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        // 3. 替换索引
+        lock.lock();
+        try {
+            Files.move(tmp, indexFile(nextGeneration), StandardCopyOption.ATOMIC_MOVE);
+            index = SortedIndex.open(indexFile(nextGeneration));
+            generation = nextGeneration;
+            frozen = null;
+            Files.delete(compactingLog);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Files.deleteIfExists(indexFile(nextGeneration - 1));
+        } catch (IOException e) {
+            log.info("旧的索引仍被映射，下次启动时再删除：{}", e.getMessage());
+        }
+        log.info("压缩任务记录完成，索引中的记录数：{}，耗时：{}ms", count, System.currentTimeMillis() - start);
+    }
+
+    private static int writeIfPresent(DataOutputStream out, Map.Entry<Fingerprint, Boolean> change) throws IOException {
+        if (!change.getValue()) {
+            return 0;
+        }
+        out.writeLong(change.getKey().hi);
+        out.writeLong(change.getKey().lo);
+        return 1;
+    }
+
+    /**
+     * 记录数，包括尚未压缩的记录；删除记录不会减少该值，直到压缩
+     */
+    public long size() {
+        lock.lock();
+        try {
+            return index.size() + active.size() + (frozen == null ? 0 : frozen.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待正在执行的压缩完成后，刷盘并关闭日志；之后提交的压缩不再执行
+     */
+    @Override
+    public void close() throws IOException {
+        compactionLock.lock();
+        try {
+            closed = true;
+            compactor.shutdown();
+            lock.lock();
+            try {
+                if (logChannel.isOpen()) {
+                    logChannel.force(false);
+                    logChannel.close();
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * 128位的指纹，按无符号数比较
+     */
+    private static final class Fingerprint implements Comparable<Fingerprint> {
+        private final long hi;
+        private final long lo;
+
+        private Fingerprint(long hi, long lo) {
+            this.hi = hi;
+            this.lo = lo;
+        }
+
+        private static Fingerprint parse(String fingerprint) {
+            return new Fingerprint(Long.parseUnsignedLong(fingerprint.substring(0, 16), 16),
+                    Long.parseUnsignedLong(fingerprint.substring(16, 32), 16));
+        }
+
+        @Override
+        public int compareTo(Fingerprint o) {
+            int result = Long.compareUnsigned(hi, o.hi);
+            return result != 0 ? result : Long.compareUnsigned(lo, o.lo);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint o = (Fingerprint) obj;
+            return hi == o.hi && lo == o.lo;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hi ^ (hi >>> 32));// 指纹本身是均匀的哈希
+        }
+    }
+
+    /**
+     * 内存映射的有序指纹数组；单个映射不能超过2GB，因此按1GB分段映射
+     */
+    private static final class SortedIndex {
+        private static final int SEGMENT_SHIFT = 26;// 每段2^26个指纹，即1GB
+        private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+        private final List<MappedByteBuffer> segments;
+        private final long size;
+
+        private SortedIndex(List<MappedByteBuffer> segments, long size) {
+            this.segments = segments;
+            this.size = size;
+        }
+
+        private static SortedIndex open(Path file) throws IOException {
+            List<MappedByteBuffer> segments = new ArrayList<>();
+            if (!Files.exists(file)) {
+                return new SortedIndex(segments, 0);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size() / 16;
+                long segmentBytes = 16L << SEGMENT_SHIFT;
+                for (long position = 0; position < size * 16; position += segmentBytes) {
+                    segments.add(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(segmentBytes, size * 16 - position)));
+                }
+                // 映射在通道关闭后仍然有效
+                return new SortedIndex(segments, size);
+            }
+        }
+
+        private long size() {
+            return size;
+        }
+
+        private Fingerprint get(long i) {
+            MappedByteBuffer segment = segments.get((int) (i >>> SEGMENT_SHIFT));
+            int offset = (int) ((i & SEGMENT_MASK) << 4);
+            return new Fingerprint(segment.getLong(offset), segment.getLong(offset + 8));
+        }
+
+        private boolean contains(Fingerprint fingerprint) {
+            long low = 0;
+            long high = size - 1;
+            while (low <= high) {
+                long mid = (low + high) >>> 1;
+                int cmp = get(mid).compareTo(fingerprint);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package indi.crawler.recoder;
 
+import java.util.List;
+
 import indi.crawler.task.Task;
 
 /**
@@ -28,4 +30,20 @@ public interface Recorder {
 	
 	boolean removeRecord(Task ctx);
 	
+	/**
+	 * 批量检查并添加记录，与逐个调用 {@link #chechAndRecord(Task)} 的结果相同（包括同一批中重复的任务）；
+	 * 基于远程存储的实现应重写为一次往返
+	 * 
+	 * @param ctxs
+	 * @return 与参数一一对应，有记录（即重复）的为true
+	 * @since 2026.10.18
+	 */
+	default boolean[] chechAndRecordAll(List<Task> ctxs) {
+	    boolean[] results = new boolean[ctxs.size()];
+	    for (int i = 0; i < results.length; i++) {
+	        results[i] = chechAndRecord(ctxs.get(i));
+	    }
+	    return results;
+	}
+	
 }
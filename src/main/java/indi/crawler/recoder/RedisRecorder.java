@@ -0,0 +1,210 @@
+package indi.crawler.recoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.BaseEncoding;
+
+import indi.crawler.task.Task;
+import indi.crawler.util.RedisUtils;
+import indi.exception.WrapperException;
+import io.lettuce.core.ScriptOutputType;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于Redis的爬虫任务记录器，多个节点共用同一个Redis即可共同去重，按任务指纹记录
+ *
+ * <p>指纹以16字节的原始形式保存在一个集合中；若Redis安装了RedisBloom模块，可改用布隆过滤器，占用更少的内存，但存在误判且不能删除记录。
+ * 批量检查通过Lua脚本一次往返完成
+ *
+ * <p>本地缓存：
+ * <ul>
+ * <li>已记录的指纹：记录只增不减（删除除外），命中时不必访问Redis
+ * <li>未记录的指纹：只用于 {@link #checkRecord(Task)}，有效期很短，因为其他节点随时可能添加记录
+ * </ul>
+ * 因此其他节点删除的记录，在本节点的缓存被淘汰前仍视为已记录
+ *
+ * <p>记录保存在 LHCF-RECORDS:工程名 中，不同的爬虫工程互不影响；记录默认保存一天，每次添加记录时顺延，
+ * 即同名工程停止一天后再次运行时记录已被清除。需要永久保存时可将有效期设为0，但同名工程此后再次运行时仍视为重复
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+@Slf4j
+public class RedisRecorder implements Recorder {
+    private static final String KEY_PREFIX = "LHCF-RECORDS:";
+    /**单次脚本最多处理的指纹数，避免脚本参数过多*/
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int POSITIVE_CACHE_SIZE = 100_000;
+    private static final int NEGATIVE_CACHE_SIZE = 10_000;
+    private static final long NEGATIVE_CACHE_TTL_MILLIS = 1000;
+    /**默认的记录有效期（毫秒），每次添加记录时顺延*/
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * 逐个添加，返回各指纹是否为新增（1：新增，0：已存在）；有效期大于0时顺延集合的有效期
+     *
+     * <p>KEYS[1]：集合；ARGV[1]：有效期（毫秒，0表示永久保存）；ARGV[2..]：指纹
+     */
+    private static final String SET_ADD_SCRIPT =
+            "local r = {} "
+            + "for i = 2, #ARGV do r[i - 1] = redis.call('SADD', KEYS[1], ARGV[i]) end "
+            + "local ttl = tonumber(ARGV[1]) "
+            + "if ttl > 0 then redis.call('PEXPIRE', KEYS[1], ttl) end "
+            + "return r";
+    private static final String BLOOM_ADD_SCRIPT =
+            "local r = redis.call('BF.MADD', KEYS[1], unpack(ARGV, 2)) "
+            + "local ttl = tonumber(ARGV[1]) "
+            + "if ttl > 0 then redis.call('PEXPIRE', KEYS[1], ttl) end "
+            + "return r";
+    private static final String BLOOM_EXISTS_SCRIPT = "return redis.call('BF.EXISTS', KEYS[1], ARGV[1])";
+
+    private final String redisURI;
+    private final String key;
+    private final boolean bloom;
+    /**记录的有效期（毫秒），0表示永久保存*/
+    private final long ttlMillis;
+    private final Cache<String, Boolean> positives = CacheBuilder.newBuilder().maximumSize(POSITIVE_CACHE_SIZE).build();
+    private final Cache<String, Boolean> negatives = CacheBuilder.newBuilder().maximumSize(NEGATIVE_CACHE_SIZE)
+            .expireAfterWrite(NEGATIVE_CACHE_TTL_MILLIS, TimeUnit.MILLISECONDS).build();
+
+    /**
+     * 创建记录有效期为 {@link #DEFAULT_TTL_MILLIS} 的记录器
+     *
+     * @param name 爬虫工程名，记录保存在 LHCF-RECORDS:工程名 中
+     */
+    public RedisRecorder(String redisURI, String name) {
+        this(redisURI, KEY_PREFIX + name, false, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * @param key 保存记录的键，每个爬虫工程一个
+     * @param bloom 是否使用RedisBloom模块的布隆过滤器（需预先用BF.RESERVE创建，否则使用默认的容量与误判率）
+     * @param ttlMillis 记录的有效期（毫秒），每次添加记录时顺延；0表示永久保存
+     */
+    public RedisRecorder(String redisURI, String key, boolean bloom, long ttlMillis) {
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("记录的有效期不能为负数：" + ttlMillis);
+        }
+        this.redisURI = redisURI;
+        this.key = key;
+        this.bloom = bloom;
+        this.ttlMillis = ttlMillis;
+        log.info("使用Redis任务记录器：{}{}{}", key, bloom ? "（布隆过滤器）" : "",
+                ttlMillis > 0 ? "，有效期" + ttlMillis + "ms" : "，永久保存");
+    }
+
+    @Override
+    public boolean chechAndRecord(Task ctx) {
+        List<Task> ctxs = new ArrayList<>(1);
+        ctxs.add(ctx);
+        return chechAndRecordAll(ctxs)[0];
+    }
+
+    /**
+     * 本地缓存中已记录的任务直接返回，其余的通过一次脚本调用检查并添加
+     */
+    @Override
+    public boolean[] chechAndRecordAll(List<Task> ctxs) {
+        boolean[] results = new boolean[ctxs.size()];
+        List<Integer> indexes = new ArrayList<>(ctxs.size());
+        List<byte[]> fingerprints = new ArrayList<>(ctxs.size());
+        for (int i = 0; i < results.length; i++) {
+            String fingerprint = ctxs.get(i).getFingerprint();
+            if (positives.getIfPresent(fingerprint) != null) {
+                results[i] = true;
+            } else {
+                indexes.add(i);
+                fingerprints.add(toBytes(fingerprint));
+            }
+        }
+        for (int from = 0; from < fingerprints.size(); from += MAX_BATCH_SIZE) {
+            int to = Math.min(from + MAX_BATCH_SIZE, fingerprints.size());
+            List<Object> added = add(fingerprints.subList(from, to));
+            for (int j = from; j < to; j++) {
+                int i = indexes.get(j);
+                results[i] = ((Number) added.get(j - from)).longValue() == 0;
+                String fingerprint = ctxs.get(i).getFingerprint();
+                positives.put(fingerprint, Boolean.TRUE);
+                negatives.invalidate(fingerprint);
+            }
+        }
+        return results;
+    }
+
+    private List<Object> add(List<byte[]> fingerprints) {
+        byte[][] args = new byte[fingerprints.size() + 1][];
+        args[0] = String.valueOf(ttlMillis).getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < fingerprints.size(); i++) {
+            args[i + 1] = fingerprints.get(i);
+        }
+        try {
+            return RedisUtils.getAsyncBytesCommands(redisURI).<List<Object>>eval(bloom ? BLOOM_ADD_SCRIPT : SET_ADD_SCRIPT,
+                    ScriptOutputType.MULTI, new String[] { key }, args).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WrapperException(e);
+        } catch (ExecutionException e) {
+            throw new WrapperException(e);
+        }
+    }
+
+    @Override
+    public boolean checkRecord(Task ctx) {
+        String fingerprint = ctx.getFingerprint();
+        if (positives.getIfPresent(fingerprint) != null) {
+            return true;
+        }
+        if (negatives.getIfPresent(fingerprint) != null) {
+            return false;
+        }
+        boolean exists;
+        try {
+            if (bloom) {
+                exists = RedisUtils.getAsyncBytesCommands(redisURI).<Long>eval(BLOOM_EXISTS_SCRIPT, ScriptOutputType.INTEGER,
+                        new String[] { key }, toBytes(fingerprint)).get() == 1;
+            } else {
+                exists = RedisUtils.getAsyncBytesCommands(redisURI).sismember(key, toBytes(fingerprint)).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WrapperException(e);
+        } catch (ExecutionException e) {
+            throw new WrapperException(e);
+        }
+        (exists ? positives : negatives).put(fingerprint, Boolean.TRUE);
+        return exists;
+    }
+
+    /**
+     * 使用布隆过滤器时不支持删除，返回false
+     */
+    @Override
+    public boolean removeRecord(Task ctx) {
+        String fingerprint = ctx.getFingerprint();
+        positives.invalidate(fingerprint);
+        if (bloom) {
+            return false;
+        }
+        try {
+            return RedisUtils.getAsyncBytesCommands(redisURI).srem(key, toBytes(fingerprint)).get() > 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WrapperException(e);
+        } catch (ExecutionException e) {
+            throw new WrapperException(e);
+        }
+    }
+
+    /**
+     * 将十六进制的指纹转为16字节，节省一半的内存
+     */
+    private static byte[] toBytes(String fingerprint) {
+        return BaseEncoding.base16().lowerCase().decode(fingerprint);
+    }
+}
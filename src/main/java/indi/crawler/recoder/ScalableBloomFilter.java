@@ -0,0 +1,177 @@
+package indi.crawler.recoder;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 可扩容的布隆过滤器，元素为任务指纹（128位哈希的十六进制字符串）
+ *
+ * <p>由若干层过滤器组成，当前层写满后新增一层，容量为上一层的2倍、误判率为上一层的一半，总的误判率不超过初始误判率的2倍。
+ * 各层的位数组基于 {@link AtomicLongArray} 以CAS置位，读写都不加锁，只有新增一层时短暂加锁
+ *
+ * <p>不支持删除
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+public class ScalableBloomFilter {
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+
+    private volatile Stage[] stages;
+
+    /**
+     * @param expectedInsertions 初始层的容量
+     * @param fpp 初始层的误判率，如0.01
+     */
+    public ScalableBloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("容量必须大于0，误判率必须在0与1之间");
+        }
+        stages = new Stage[] { new Stage(expectedInsertions, fpp) };
+    }
+
+    /**
+     * 判断指纹是否可能已添加；返回false时一定没有添加过
+     */
+    public boolean mightContain(String fingerprint) {
+        long h1 = hash1(fingerprint);
+        long h2 = hash2(fingerprint);
+        for (Stage stage : stages) {
+            if (stage.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 添加指纹
+     *
+     * @return 若之前一定没有添加过，返回true；若可能已添加过，返回false
+     */
+    public boolean put(String fingerprint) {
+        long h1 = hash1(fingerprint);
+        long h2 = hash2(fingerprint);
+        Stage[] current = stages;
+        // 先检查之前的各层，最后一层在置位时检查
+        for (int i = 0; i < current.length - 1; i++) {
+            if (current[i].mightContain(h1, h2)) {
+                return false;
+            }
+        }
+        Stage last = current[current.length - 1];
+        if (!last.put(h1, h2)) {
+            return false;
+        }
+        if (last.count.incrementAndGet() >= last.capacity) {
+            grow(current);
+        }
+        return true;
+    }
+
+    private synchronized void grow(Stage[] expected) {
+        if (stages != expected) {
+            return;// 其他线程已扩容
+        }
+        Stage last = expected[expected.length - 1];
+        Stage[] grown = new Stage[expected.length + 1];
+        System.arraycopy(expected, 0, grown, 0, expected.length);
+        grown[expected.length] = new Stage(last.capacity * GROWTH, last.fpp * TIGHTENING);
+        stages = grown;
+    }
+
+    /**
+     * 已添加的元素数，可能偏大（并发添加同一个元素时）
+     */
+    public long size() {
+        long size = 0;
+        for (Stage stage : stages) {
+            size += stage.count.get();
+        }
+        return size;
+    }
+
+    /**
+     * 位数组占用的字节数
+     */
+    public long bitSizeBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += stage.words.length() * 8L;
+        }
+        return bytes;
+    }
+
+    public int stageCount() {
+        return stages.length;
+    }
+
+    /**
+     * 指纹本身就是均匀的哈希，直接取其前后两个64位作为两个哈希值
+     */
+    private static long hash1(String fingerprint) {
+        return Long.parseUnsignedLong(fingerprint.substring(0, 16), 16);
+    }
+
+    private static long hash2(String fingerprint) {
+        return Long.parseUnsignedLong(fingerprint.substring(16, 32), 16);
+    }
+
+    private static class Stage {
+        private final long capacity;
+        private final double fpp;
+        private final long bitSize;
+        private final int hashCount;
+        private final AtomicLongArray words;
+        private final AtomicLong count = new AtomicLong();
+
+        private Stage(long capacity, double fpp) {
+            this.capacity = capacity;
+            this.fpp = fpp;
+            long bits = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.bitSize = wordCount * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitSize / capacity * Math.log(2)));
+        }
+
+        /**
+         * 双重哈希：第i个位置为 h1 + i * h2
+         */
+        private long index(long h1, long h2, int i) {
+            return ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+        }
+
+        private boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashCount; i++) {
+                long index = index(h1, h2, i);
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return 是否有位由0变为1，即该元素之前一定不在本层中
+         */
+        private boolean put(long h1, long h2) {
+            boolean changed = false;
+            for (int i = 0; i < hashCount; i++) {
+                long index = index(h1, h2, i);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long old;
+                do {
+                    old = words.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, old, old | mask));
+                changed |= (old & mask) == 0;
+            }
+            return changed;
+        }
+    }
+}
@@ -1,16 +1,44 @@
 /**
- * 
+ *
  */
 package indi.crawler.task;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import indi.crawler.recoder.Recorder;
+import lombok.extern.slf4j.Slf4j;
+
 /**
  * 提供通用逻辑
- * 
+ *
  * @author wzh
  * @since 2021.12.10
  */
+@Slf4j
 public abstract class BasicTaskPool implements TaskPool {
-    
+    /** 单次poll最多延期的暂停主机的任务数，避免不支持延期的任务池反复取出同一任务 */
+    private static final int MAX_PAUSED_DEFERRALS_PER_POLL = 16;
+    /** 暂停的主机 -> 恢复的时间 */
+    private final ConcurrentHashMap<String, Long> pausedHosts = new ConcurrentHashMap<>();
+    /** 每成功提供一次任务就加一，用于判断挂起前是否有新任务，避免丢失唤醒信号 */
+    private final AtomicLong offerSequence = new AtomicLong();
+    /** 正在挂起等待任务的线程数，没有线程等待时不需要加锁发信号 */
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final ReentrantLock availableLock = new ReentrantLock();
+    private final Condition availableCondition = availableLock.newCondition();
+    /** 任务记录器，用于检查需要检查记录的任务是否重复；由子类初始化，为null时不检查 */
+    Recorder recorder;
 
     @Override
     public boolean offer(Task task) {
@@ -18,23 +46,294 @@ public abstract class BasicTaskPool implements TaskPool {
         if (result) {
             task.setLeasedTime(-1);
             task.setRegisteredTime(System.currentTimeMillis());
+            signalAvailable();
+        }
+        return result;
+    }
+
+    abstract boolean offer0(Task task);
+
+    @Override
+    public List<Task> offerAll(Collection<Task> tasks) {
+        List<Task> accepted = offerAll0(tasks);
+        if (!accepted.isEmpty()) {
+            long now = System.currentTimeMillis();
+            for (Task task : accepted) {
+                task.setLeasedTime(-1);
+                task.setRegisteredTime(now);
+            }
+            signalAvailable(accepted.size());
+        }
+        return accepted;
+    }
+
+    /**
+     * 默认实现：逐个调用offer0。子类可重写为原生的批量实现
+     *
+     * @return 成功新增的任务
+     * @since 2026.10.18
+     */
+    List<Task> offerAll0(Collection<Task> tasks) {
+        List<Task> accepted = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            if (offer0(task)) {
+                accepted.add(task);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * 检查任务是否重复：只检查需要检查记录且尚未通过检查的任务
+     * 
+     * @return 是否重复
+     * @since 2026.10.18
+     */
+    boolean isDuplicate(Task task) {
+        if (recorder == null || task.isRecorded() || !task.getTaskDef().isNeedCheckRecord()) {
+            return false;
+        }
+        if (recorder.chechAndRecord(task)) {
+            return true;
+        }
+        task.setRecorded(true);
+        return false;
+    }
+
+    /**
+     * 尚未添加记录的任务，用于放入任务池失败时找出本次添加了记录的任务（见 {@link #undoRecord(Task)}）
+     * 
+     * @since 2026.10.18
+     */
+    static Set<Task> unrecorded(Collection<Task> tasks) {
+        Set<Task> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Task task : tasks) {
+            if (!task.isRecorded()) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 任务未能放入任务池时，撤销本次检查时添加的记录，以便之后可以再次提供；只应对本次添加了记录的任务调用。
+     * 记录器不支持删除（如布隆过滤器）时无法撤销
+     * 
+     * @since 2026.10.18
+     */
+    void undoRecord(Task task) {
+        if (recorder != null && task.isRecorded()) {
+            task.setRecorded(false);
+            try {
+                recorder.removeRecord(task);
+            } catch (RuntimeException e) {
+                log.error("撤销任务记录失败：{}", task.getUri(), e);
+            }
+        }
+    }
+
+    /**
+     * 批量检查任务是否重复，需要检查的任务通过 {@link Recorder#chechAndRecordAll(List)} 一次检查
+     * 
+     * @return 不重复的任务，保持原有顺序
+     * @since 2026.10.18
+     */
+    List<Task> filterDuplicates(Collection<Task> tasks) {
+        List<Task> toCheck = new ArrayList<>();
+        if (recorder != null) {
+            for (Task task : tasks) {
+                if (!task.isRecorded() && task.getTaskDef().isNeedCheckRecord()) {
+                    toCheck.add(task);
+                }
+            }
+        }
+        if (toCheck.isEmpty()) {
+            return new ArrayList<>(tasks);
+        }
+        boolean[] duplicates = recorder.chechAndRecordAll(toCheck);
+        for (int i = 0; i < duplicates.length; i++) {
+            if (!duplicates[i]) {
+                toCheck.get(i).setRecorded(true);
+            }
+        }
+        List<Task> result = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            // 需要检查但没有通过的即为重复
+            if (task.isRecorded() || recorder == null || !task.getTaskDef().isNeedCheckRecord()) {
+                result.add(task);
+            }
         }
         return result;
     }
-    
-    abstract boolean offer0(Task task); 
 
     @Override
     public Task poll() {
-        Task ctx = poll0();
+        Task ctx;
+        int deferred = 0;
+        while ((ctx = poll0()) != null && deferIfHostPaused(ctx)) {
+            if (++deferred >= MAX_PAUSED_DEFERRALS_PER_POLL) {
+                return null;
+            }
+        }
         if (ctx != null) {
             ctx.setLeasedTime(System.currentTimeMillis());
         }
         return ctx;
     }
-    
+
     abstract Task poll0();
-    
+
+    @Override
+    public List<Task> pollBatch(int max) {
+        List<Task> tasks = pollBatch0(max);
+        if (!tasks.isEmpty()) {
+            long now = System.currentTimeMillis();
+            for (Task task : tasks) {
+                task.setLeasedTime(now);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * 默认实现：逐个调用poll0，直至取不到任务。子类可重写为原生的批量实现
+     *
+     * @since 2026.10.18
+     */
+    List<Task> pollBatch0(int max) {
+        List<Task> tasks = new ArrayList<>(Math.min(max, 16));
+        Task task;
+        while (tasks.size() < max && (task = poll0()) != null) {
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    @Override
+    public Task poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Task ctx;
+        int deferred = 0;
+        while ((ctx = poll0(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) != null
+                && deferIfHostPaused(ctx)) {
+            if (++deferred >= MAX_PAUSED_DEFERRALS_PER_POLL) {
+                return null;
+            }
+        }
+        if (ctx != null) {
+            ctx.setLeasedTime(System.currentTimeMillis());
+        }
+        return ctx;
+    }
+
+    @Override
+    public void pauseHost(String host, long until) {
+        pausedHosts.merge(host, until, Math::max);
+    }
+
+    /**
+     * 若任务的主机已被暂停，则将任务延期至恢复的时间
+     *
+     * @return 任务是否被延期
+     * @since 2026.10.18
+     */
+    private boolean deferIfHostPaused(Task task) {
+        String host = task.getHost();
+        if (pausedHosts.isEmpty() || host == null) {
+            return false;
+        }
+        Long until = pausedHosts.get(host);
+        if (until == null) {
+            return false;
+        }
+        if (until <= System.currentTimeMillis()) {
+            // 已恢复，清理记录
+            pausedHosts.remove(host, until);
+            return false;
+        }
+        task.checkAndSetStatus(CrawlerStatus.BLOCKING_TIME);
+        return deferral(task, until);
+    }
+
+    /**
+     * 默认实现：poll0取不到任务时挂起，直至有任务被提供或超时。子类可重写为原生的阻塞实现
+     *
+     * @since 2026.10.18
+     */
+    Task poll0(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            long sequence = offerSequence.get();
+            Task ctx = poll0();
+            long nanos = deadline - System.nanoTime();
+            if (ctx != null || nanos <= 0) {
+                return ctx;
+            }
+            // 有任务只是暂时不可取（如主机尚不允许访问）时，最多挂起至其可取
+            long nextAvailable = nextAvailableTime();
+            if (nextAvailable != -1) {
+                long millis = Math.max(nextAvailable - System.currentTimeMillis(), 1);
+                nanos = Math.min(nanos, TimeUnit.MILLISECONDS.toNanos(millis));
+            }
+            availableLock.lockInterruptibly();
+            try {
+                waiters.incrementAndGet();
+                try {
+                    // 取任务期间没有新任务被提供，才挂起
+                    if (sequence == offerSequence.get()) {
+                        availableCondition.awaitNanos(nanos);
+                    }
+                } finally {
+                    waiters.decrementAndGet();
+                }
+            } finally {
+                availableLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 暂时不可取的任务中，最早可取的时间，用于限制poll的挂起时间
+     *
+     * @return millis；没有则返回-1
+     * @since 2026.10.18
+     */
+    long nextAvailableTime() {
+        return -1;
+    }
+
+    /**
+     * 通知挂起中的线程有新的任务可取
+     *
+     * @since 2026.10.18
+     */
+    protected void signalAvailable() {
+        signalAvailable(1);
+    }
+
+    /**
+     * 通知挂起中的线程有多个新的任务可取，最多唤醒count个线程
+     *
+     * @since 2026.10.18
+     */
+    protected void signalAvailable(int count) {
+        offerSequence.incrementAndGet();
+        if (waiters.get() > 0) {
+            availableLock.lock();
+            try {
+                if (count >= waiters.get()) {
+                    availableCondition.signalAll();
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        availableCondition.signal();
+                    }
+                }
+            } finally {
+                availableLock.unlock();
+            }
+        }
+    }
+
     @Override
     public boolean deferral(Task task, Long wakeUpTime) {
         boolean result = deferral0(task, wakeUpTime);
@@ -43,7 +342,7 @@ public abstract class BasicTaskPool implements TaskPool {
         }
         return result;
     }
-    
+
     abstract boolean deferral0(Task task, Long wakeUpTime);
-    
+
 }
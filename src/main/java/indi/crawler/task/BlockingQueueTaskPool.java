@@ -1,22 +1,18 @@
 package indi.crawler.task;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.TreeMap;
-import java.util.concurrent.PriorityBlockingQueue;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.http.client.utils.DateUtils;
 
 import indi.crawler.filter.TaskFilter;
 import indi.crawler.monitor.Monitor.MonitorThread;
 import indi.crawler.recoder.CommonRecorder;
-import indi.crawler.recoder.Recorder;
 import indi.crawler.task.def.TaskDef;
 import indi.exception.WrapperException;
 import lombok.extern.slf4j.Slf4j;
@@ -34,32 +30,34 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class BlockingQueueTaskPool extends BasicTaskPool {
-    private static final int DEFAULT_RECENTLY_WAKE_UP = 0;
+    /** 延期任务线程的最长挂起时间，决定了线程响应退休的速度 */
+    private static final long DEFERRAL_RECOVER_MAX_PARK_MILLIS = 1000L;
     
     private CrawlerController controller;
 
     /**
-     * 就绪队列，该队列中的爬虫上下文随时可以取出进行处理<br>
+     * 就绪队列，该队列中的爬虫上下文随时可以取出进行处理
      * 
-     * 注意这个对象(TreeMap)的使用线程不安全，但PriorityBlockingQueue的使用线程安全，因此仅添加队列时需要加锁
+     * <p>此前为TreeMap&lt;TaskDef, PriorityBlockingQueue&gt;，TreeMap线程不安全，新增队列时需要加锁，且每次取任务、统计任务数都要遍历，
+     * 现改为按任务定义序号索引的多队列调度器
      */
-    private TreeMap<TaskDef, PriorityBlockingQueue<Task>> availables;
+    private MultiQueueScheduler availables;
     /**
-     * 等待队列，任务超时后会离开出租集合，进入该队列；注意该队列按唤醒时间进行排序
+     * 等待队列，任务超时后会离开出租集合，进入该队列；按唤醒时间组织为时间轮，增删均为O(1)
+     * 
+     * <p>此前为按唤醒时间排序的PriorityBlockingQueue，需要守护线程不断轮询队首，会导致一个核心持续满载，已更正
      */
-    private PriorityBlockingQueue<Task> deferrals;
+    private TimingWheel<Task> deferrals;
     /** 定时处理延期任务的线程 */
     DeferralRecoverThread deferralRecoverThread;
-    /**最近唤醒的时间(millis)*/
-    private volatile long recentlyWakeUpRecord;
     /**
      * 已出租爬虫集合
      * 
      * <p>此前类型为线程不安全的PriorityQueue，会导致线程安全问题，已更正
+     * 
+     * <p>2026.10.18 此后的PriorityBlockingQueue每次移除任务都要在全局锁内线性遍历，现改为按引用索引、按出租期限组织的出租任务表
      */
-    private PriorityBlockingQueue<Task> leaseds;
-    private Lock recentlyWakeUpLock;
-    private Recorder recorder;
+    private LeaseTable leaseds;
     private List<TaskFilter> filters;
 
     
@@ -68,15 +66,13 @@ public class BlockingQueueTaskPool extends BasicTaskPool {
      */
     protected void init(CrawlerController controller) {
         this.controller = controller;
-        recentlyWakeUpRecord = DEFAULT_RECENTLY_WAKE_UP;
-        recentlyWakeUpLock = new ReentrantLock();
-        availables = new TreeMap<>();
-        deferrals = new PriorityBlockingQueue<>(100, new Task.DeferralContextComparator());// sure capacity ? FIXME: 
-        deferralRecoverThread = new DeferralRecoverThread(100L);
+        availables = new MultiQueueScheduler();
+        deferrals = new TimingWheel<>();
+        deferralRecoverThread = new DeferralRecoverThread(DEFERRAL_RECOVER_MAX_PARK_MILLIS);
         deferralRecoverThread.startDeamon(controller);
         
-        leaseds = new PriorityBlockingQueue<>();
-        recorder = new CommonRecorder();
+        leaseds = new LeaseTable();
+        recorder = Optional.ofNullable(controller.getJob().getRecorder()).orElseGet(CommonRecorder::new);
         
         filters = new LinkedList<>();
     }
@@ -95,6 +91,33 @@ public class BlockingQueueTaskPool extends BasicTaskPool {
      */
     @Override
     public boolean offer0(Task ctx) {
+        // 向可用队列添加任务，按任务定义的序号直接定位队列，无需加锁
+        return checkBeforeOffer(ctx) && availables.offer(ctx);
+    }
+
+    /**
+     * 批量添加：逐个检查后直接放入可用队列，由BasicTaskPool统一唤醒等待任务的线程
+     * 
+     * @since 2026.10.18
+     */
+    @Override
+    List<Task> offerAll0(Collection<Task> tasks) {
+        List<Task> accepted = new ArrayList<>(tasks.size());
+        for (Task ctx : filterDuplicates(tasks)) {
+            if (checkBeforeOffer(ctx) && availables.offer(ctx)) {
+                accepted.add(ctx);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * 检查任务是否可以放入可用队列，并确保其不在出租集合中
+     * 
+     * @return 是否可以放入
+     * @since 2026.10.18
+     */
+    private boolean checkBeforeOffer(Task ctx) {
         Objects.requireNonNull(ctx);
         CrawlerStatus status = ctx.getStatus();
         // 不处理延期任务
@@ -103,28 +126,13 @@ public class BlockingQueueTaskPool extends BasicTaskPool {
             throw new WrapperException("尝试提供延期任务：" + ctx.getMessage());
         }
         
-        // 检查是否有重复记录，若有则不处理 TODO: 待完善
-        TaskDef taskDef = ctx.getTaskDef();
-        if (taskDef.isNeedCheckRecord() && recorder.chechAndRecord(ctx)) {
+        // 检查是否有重复记录，若有则不处理；2026.10.18 已通过检查的任务（如重试、延期后恢复的任务）不再检查
+        if (isDuplicate(ctx)) {
             return false;
         }
         // 以防万一，从出租集合里移除context
         remove(ctx);
-        
-        // 向可用队列添加任务
-        // !!! 大坑！对TreeMap而言，仅以比较结果，而不是equals方法判断映射结果
-        // 因此，需要保证treeMap的key的比较结果都不同，才能保证key/value间是__映射__关系
-        PriorityBlockingQueue<Task> queue = Optional.ofNullable(availables.get(taskDef))
-                .orElseGet(() -> {
-                    synchronized (taskDef) {// availables线程不安全，需要加锁，锁的粒度为任务定义
-                        // 若找不到任务定义对应的阻塞队列，则初始化一个
-                        PriorityBlockingQueue<Task> priorityQueue = new PriorityBlockingQueue<>();
-                        availables.put(taskDef, priorityQueue);
-                        return priorityQueue;
-                    }
-                });
-        // 插入并返回
-        return queue.offer(ctx);
+        return true;
     }
     
     private boolean wakeUp(Task task) {
@@ -143,23 +151,12 @@ public class BlockingQueueTaskPool extends BasicTaskPool {
             throw new WrapperException("尝试回收该非延期任务：" + ctx.getMessage());
         }
         
-        // 缓存延时任务
-        // a. 尝试更新最近（最小）唤醒时间为更小值
-        if (wakeUpTime < recentlyWakeUpRecord) {
-            recentlyWakeUpLock.lock();
-            try {
-                if (wakeUpTime < recentlyWakeUpRecord) {
-                    recentlyWakeUpRecord = wakeUpTime;
-                }
-            } finally {
-                recentlyWakeUpLock.unlock();
-            }
-        }
-        
-        // b. 尝试从出租集合里移除爬虫任务
+        // 尝试从出租集合里移除爬虫任务
         // 可能移除失败（如：任务被拦截器拦截时尚未添加至出租队列 FIXME:sure？）
         remove(ctx);
-        return deferrals.offer(ctx);
+        // 放入时间轮，到期后由DeferralRecoverThread唤醒
+        deferrals.add(ctx, wakeUpTime);
+        return true;
     }
 
     @Override
@@ -175,46 +172,42 @@ public class BlockingQueueTaskPool extends BasicTaskPool {
      * @since 2020.03.25
      * @param availables
      */
-    private Task pollAvailableTask(TreeMap<TaskDef, PriorityBlockingQueue<Task>> availables) {
-        Task ctx = null;
-        // 按任务定义的优先级，取出任务队列
-        for (Entry<TaskDef, PriorityBlockingQueue<Task>> entry : availables.entrySet()) {
-            PriorityBlockingQueue<Task> queue = entry.getValue();
-            // 从队列，按优先级取出爬虫任务
-            // 由于PriorityBlockingQueue是线程安全的，以下逻辑多线程执行时，每个线程操作的ctx应该各不相同，不会冲突
-            while (true) {
-                ctx = queue.poll();
-                if (ctx != null) {
-                    // 立即加入出租队列，避免任务在过滤过程中丢失；但无法完全保证出队入队的原子性
-                    leaseds.add(ctx);// 等价于offer
-                    // 调用过滤器，判断是否继续执行该任务
-                    boolean executable = true;
-                    if (filters != null) {
-                        for (TaskFilter filter : filters) {
-                            try {
-                                executable = filter.isExecute(ctx, Thread.currentThread(), controller);
-                            } catch (Exception e) {
-                                executable = false;// 避免任务被舍弃在leased队列中
-                            }
-                            if (!executable) {
-                                // 一旦有过滤器判断不予执行，就结束遍历过滤器
-                                break;
-                            }
-                        }
-                    }
-                    if (executable) {
-                        return ctx;
-                    } else if (leaseds.remove(ctx)) {// 舍弃不通过任务
-                        log.error("从出租队列中找不到刚刚取出的过滤不通过的任务");
-                    }
-                    // 取出的爬虫过滤不通过，继续循环获取爬虫任务
-                } else {
-                    // 当前任务队列为空，遍历其他任务定义
+    private Task pollAvailableTask(MultiQueueScheduler availables) {
+        // 按任务定义的优先级、任务优先级取出任务；调度器保证每个线程取出的任务各不相同
+        return availables.poll(this::lease);
+    }
+
+    /**
+     * 将刚取出的任务加入出租队列，并调用过滤器判断是否执行该任务
+     * 
+     * @return 是否执行该任务；不执行的任务由过滤器负责处理（如延期）
+     * @since 2026.10.18
+     */
+    private boolean lease(Task ctx) {
+        // 立即加入出租队列，避免任务在过滤过程中丢失；但无法完全保证出队入队的原子性
+        leaseds.lease(ctx, System.currentTimeMillis());
+        // 调用过滤器，判断是否继续执行该任务
+        boolean executable = true;
+        if (filters != null) {
+            for (TaskFilter filter : filters) {
+                try {
+                    executable = filter.isExecute(ctx, Thread.currentThread(), controller);
+                } catch (Exception e) {
+                    executable = false;// 避免任务被舍弃在leased队列中
+                }
+                if (!executable) {
+                    // 一旦有过滤器判断不予执行，就结束遍历过滤器
                     break;
                 }
             }
         }
-        return ctx;
+        if (!executable) {
+            if (leaseds.release(ctx)) {// 舍弃不通过任务
+                log.error("从出租队列中找不到刚刚取出的过滤不通过的任务");
+            }
+            release(ctx);
+        }
+        return executable;
     }
 
     /**
@@ -222,15 +215,15 @@ public class BlockingQueueTaskPool extends BasicTaskPool {
      */
     @Override
     public Task[] cloneLeased() {
-        final Object[] array;
-//        Lock lock = leasedsLock;// avoid get field
-        array = leaseds.toArray();
+        return leaseds.toArray();
+    }
 
-        Task[] tasks = new Task[array.length];
-        for (int i = 0; i < tasks.length; i++) {
-            tasks[i] = (Task) array[i];
-        }
-        return tasks;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Task[] pollExpiredLeased(long now) {
+        return leaseds.pollExpired(now);
     }
 
     @Override
@@ -245,7 +238,27 @@ public class BlockingQueueTaskPool extends BasicTaskPool {
     public boolean remove(Task ctx) {
         Objects.requireNonNull(ctx);
         // 从出租队列移除爬虫
-        return leaseds.remove(ctx) || deferrals.remove(ctx);
+        if (leaseds.release(ctx)) {
+            release(ctx);
+            return true;
+        }
+        return deferrals.remove(ctx);
+    }
+
+    /**
+     * 归还任务占用的主机执行数；若成功归还，则该主机可能有任务可取，需要唤醒等待的线程
+     * 
+     * @since 2026.10.18
+     */
+    private void release(Task ctx) {
+        if (availables.release(ctx)) {
+            signalAvailable();
+        }
+    }
+
+    @Override
+    long nextAvailableTime() {
+        return availables.nextEligibleTime();
     }
 
     @Override
@@ -255,12 +268,7 @@ public class BlockingQueueTaskPool extends BasicTaskPool {
     
     @Override
     public int availableSize() {
-        int size = 0;
-        for (Entry<TaskDef, PriorityBlockingQueue<Task>> e : availables.entrySet()) {
-            // 累加每种任务定义的可用任务数
-            size += e.getValue().size();
-        }
-        return size;
+        return availables.size();
     }
     
     @Override
@@ -282,17 +290,21 @@ public class BlockingQueueTaskPool extends BasicTaskPool {
         StringBuilder sb = new StringBuilder();
         sb.append("availables--[ ");
         // 遍历每个任务定义
-        for (Entry<TaskDef, PriorityBlockingQueue<Task>> e : availables.entrySet()) {
-            PriorityBlockingQueue<Task> tasks = e.getValue();
-            // 遍历每个任务状态
-            int queueSize = tasks.size();
+        availables.forEachSlot(slot -> {
+            int queueSize = slot.size.get();
             if (queueSize > 0) {
-                sb.append(" [ ").append(e.getKey().getName()).append(":").append(queueSize).append(" ] ");
+                sb.append(" [ ").append(slot.taskDef.getName()).append(":").append(queueSize);
+                if (slot.frontier != null) {
+                    // 按主机输出 排队数/执行数
+                    sb.append(" ").append(slot.frontier.describeHosts());
+                }
+                sb.append(" ] ");
             }
-        }
+        });
         sb.append(" ]");
+        long nextWakeUp = deferrals.nextExpiration();
         sb.append(" deferrials- [ ").append(deferrals.size()).append(" ], recently wake up is :")
-                .append(DateUtils.formatDate(new Date(recentlyWakeUpRecord), "yyyy-MM-dd"))
+                .append(nextWakeUp == -1 ? "-" : DateUtils.formatDate(new Date(nextWakeUp), "yyyy-MM-dd HH:mm:ss"))
                 .append(" | ")
                 .append(" leaseds-[")
                 .append(getLeasedSize())
@@ -307,7 +319,9 @@ public class BlockingQueueTaskPool extends BasicTaskPool {
     }
 
     /**
-     * 定时将延期任务移动至可用队列的线程
+     * 将到期的延期任务移动至可用队列的线程
+     * 
+     * <p>2026.10.18 此前会不断轮询延期队列的队首而不睡眠，导致一个核心持续满载；现改为挂起至最早的任务到期，再批量唤醒
      * 
      * @author wzh
      * @since 2020.03.25
@@ -316,7 +330,7 @@ public class BlockingQueueTaskPool extends BasicTaskPool {
 
         /**
          * 
-         * @param millis 遍历超时队列的时间，由于每次只出队一个任务，该参数决定了唤醒的最高频率，因此必须尽可能的小
+         * @param millis 最长挂起时间；没有任务到期时，线程最多挂起该时间后检查一次是否已退休
          */
         public DeferralRecoverThread(Long millis) {
             super("DeferralRecoverThread", millis);
@@ -326,48 +340,22 @@ public class BlockingQueueTaskPool extends BasicTaskPool {
         @Override
         public void run0() {
             while (!retire) {
-                long now = System.currentTimeMillis();
-                if (now > recentlyWakeUpRecord && !deferrals.isEmpty()) {
-                    // 将等待队列中所有超过唤醒时间的任务出队
-                    Task firstTask = deferrals.peek();
-                    Long wt = Optional.ofNullable(firstTask).map(Task::getWakeUpTime).orElse(null);
-                    // 注意：这里并发执行时有线程安全问题：如果同时有多个线程出队，会导致超前出队；必须只有一个线程在执行
-                    while (firstTask != null && wt < now) {
-                        Task task = deferrals.poll();// 该任务不一定等于firstTask，但唤醒时间一定小于等于firstTask
-                        if (!wakeUp(task)) {
-                            log.error("唤醒延期爬虫任务失败：{}", task);
-                        }
-                        log.debug("【DeferralRecoverThread】：唤醒爬虫任务：{}", task.getMessage());
-                        
-                        // 处理下一个任务
-                        firstTask = deferrals.peek();
-                        wt = Optional.ofNullable(firstTask).map(Task::getWakeUpTime).orElse(null);
+                List<Task> tasks;
+                try {
+                    // 挂起至最早的任务到期，并一次性取出所有到期的任务
+                    tasks = deferrals.awaitExpired(sleepMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (retire) {
+                        return;
                     }
-                    updateRecentlyWakeUpRecord(wt);
+                    throw new WrapperException(e);
                 }
-            }
-        }
-        
-        /**
-         * 更新最近唤醒时间为更大值
-         * 
-         * @author DragonBoom
-         * @since 2020.07.23
-         * @param nextWakeUpTime
-         */
-        private void updateRecentlyWakeUpRecord(Long nextWakeUpTime) {
-            if (nextWakeUpTime == null) {
-                return;
-            }
-            
-            if (nextWakeUpTime > recentlyWakeUpRecord) {
-                recentlyWakeUpLock.lock();
-                try {
-                    if (nextWakeUpTime > recentlyWakeUpRecord) {
-                        recentlyWakeUpRecord = nextWakeUpTime;
+                for (Task task : tasks) {
+                    if (!wakeUp(task)) {
+                        log.error("唤醒延期爬虫任务失败：{}", task);
                     }
-                } finally {
-                    recentlyWakeUpLock.unlock();
+                    log.debug("【DeferralRecoverThread】：唤醒爬虫任务：{}", task.getMessage());
                 }
             }
         }
@@ -1,5 +1,8 @@
 package indi.crawler.task;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -12,6 +15,7 @@ import indi.crawler.monitor.Monitor.MonitorThread;
 import indi.crawler.processor.ProcessorChain;
 import indi.crawler.thread.CrawlerThread;
 import indi.crawler.thread.CrawlerThreadPool;
+import indi.crawler.util.RedisUtils;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -40,6 +44,10 @@ public class CrawlerController {
     @Setter
     private TaskFactory taskFactory;
     private List<MonitorThread> monitors;// 监视器线程集合
+    /** 是否已登记为Redis连接的持有者，见 {@link RedisUtils#retain(String)} */
+    private volatile boolean redisRetained;
+    /** 按主机的熔断器，懒加载 */
+    private volatile HostCircuitBreaker circuitBreaker;
 
     /**
      * 初始化
@@ -68,7 +76,14 @@ public class CrawlerController {
         if (taskPool == null) {
             String redisURI = job.getRedisURI();
             if (redisURI != null) {
-                taskPool = new RedisMQCrawlerTaskPool(redisURI, this);
+                // 登记为该uri的持有者，结束时只释放自己持有的连接
+                RedisUtils.retain(redisURI);
+                redisRetained = true;
+            }
+            if (redisURI != null && job.getRedisStreamGroup() != null) {
+                taskPool = new RedisStreamCrawlerTaskPool(redisURI, job.getRedisStreamGroup(), this);
+            } else if (redisURI != null) {
+                taskPool = new RedisMQCrawlerTaskPool(redisURI, this, job.isRedisReliable());
             } else {
                 taskPool = new BlockingQueueTaskPool(this);
             }
@@ -79,10 +94,33 @@ public class CrawlerController {
      * 开始执行爬虫任务
      */
     public void process(Task task) {
+        // 主机已熔断时，不执行任务，直接延期（不计入尝试次数）
+        long retryAt = getCircuitBreaker().checkRequest(task.getHost());
+        if (retryAt != -1) {
+            task.checkAndSetStatus(CrawlerStatus.DEFERRED);
+            deferral(task, retryAt);
+            return;
+        }
         initProcessStatus(task);
         chain.process(task);
     }
     
+    /**
+     * 获取按主机的熔断器
+     * 
+     * @since 2026.10.18
+     */
+    public HostCircuitBreaker getCircuitBreaker() {
+        if (circuitBreaker == null) {
+            synchronized (this) {
+                if (circuitBreaker == null) {
+                    circuitBreaker = new HostCircuitBreaker(getPool());
+                }
+            }
+        }
+        return circuitBreaker;
+    }
+    
     private void initProcessStatus(Task task) {
         task.checkAndSetStatus(CrawlerStatus.RUNNING);
         task.setAttempts(task.getAttempts() + 1);
@@ -93,6 +131,16 @@ public class CrawlerController {
         return getPool().offer(task);
     }
     
+    /**
+     * 批量新增爬虫任务
+     * 
+     * @return 成功新增的任务
+     * @since 2026.10.18
+     */
+    public List<Task> offerAll(Collection<Task> tasks) {
+        return getPool().offerAll(tasks);
+    }
+    
     /**
      * 延期执行爬虫
      * 
@@ -109,6 +157,39 @@ public class CrawlerController {
         return getPool().poll();
     }
     
+    /**
+     * 取出爬虫任务，若暂时没有任务则挂起至有任务可取或超时
+     * 
+     * @param timeout
+     * @param unit
+     * @return 超时返回null
+     * @throws InterruptedException
+     * @since 2026.10.18
+     */
+    public Task poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return getPool().poll(timeout, unit);
+    }
+    
+    /**
+     * 批量取出爬虫任务，不阻塞
+     * 
+     * @since 2026.10.18
+     */
+    public List<Task> pollBatch(int max) {
+        return getPool().pollBatch(max);
+    }
+    
+    /**
+     * 暂停主机直至指定时间
+     * 
+     * @param host 主机名
+     * @param until 恢复的时间，millis
+     * @since 2026.10.18
+     */
+    public void pauseHost(String host, long until) {
+        getPool().pauseHost(host, until);
+    }
+    
     /**
      * 结束所有监视器线程
      */
@@ -131,6 +212,20 @@ public class CrawlerController {
         retireMonitorThreads();
         // 关闭线程池
         threadPool.close();
+        // 释放Redis爬虫池的连接；其他仍在使用同一uri的对象（如其他爬虫任务、缓存处理器）不受影响
+        if (redisRetained) {
+            redisRetained = false;
+            log.info("Redis命令延迟：{}", RedisUtils.getMetrics());
+            RedisUtils.release(job.getRedisURI());
+        }
+        // 关闭需要关闭的任务记录器（如持久化的记录器需刷盘）
+        if (job.getRecorder() instanceof Closeable) {
+            try {
+                ((Closeable) job.getRecorder()).close();
+            } catch (IOException e) {
+                log.error("关闭任务记录器失败", e);
+            }
+        }
         log.info("强制结束爬虫任务完成");
     }
     
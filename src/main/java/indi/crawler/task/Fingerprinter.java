@@ -0,0 +1,132 @@
+package indi.crawler.task;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.BufferedHttpEntity;
+
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import indi.crawler.task.def.TaskDef;
+import indi.exception.WrapperException;
+
+/**
+ * 计算任务的指纹：128位的murmur3哈希，以32位十六进制字符串表示，可用作缓存、记录器、去重的键
+ *
+ * <p>依次将请求方法、规范化的地址（见 {@link UriCanonicalizer}）、指定的请求头、请求实体的字节写入哈希，请求实体以流的形式写入，不会整体读入内存；
+ * 不可重复读取的请求实体（如基于输入流的实体）读取后将无法再发送，因此先读入内存（{@link BufferedHttpEntity}）并替换请求的实体，再写入哈希。
+ * 2026.10.18 此前只写入其类型与长度，长度相同的不同实体的指纹相同，会共用缓存并被视为重复的任务
+ *
+ * <p>若任务设置了唯一键，则指纹只由唯一键计算
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+public final class Fingerprinter {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    /**各部分之间的分隔符，避免不同的拼接方式得到相同的输入*/
+    private static final byte SEPARATOR = 0;
+
+    private Fingerprinter() {
+    }
+
+    /**
+     * 计算任务的指纹；任务会缓存其指纹，应通过 {@link Task#getFingerprint()} 获取
+     */
+    public static String fingerprint(Task task) {
+        if (task.getIdentityKey() != null) {
+            return HASH_FUNCTION.hashString(task.getIdentityKey(), StandardCharsets.UTF_8).toString();
+        }
+        TaskDef taskDef = task.getTaskDef();
+        Collection<String> headerNames = taskDef == null ? Collections.emptyList() : taskDef.getFingerprintHeaders();
+        String canonicalUri = task.getCanonicalUri();
+        if (canonicalUri == null) {
+            UriCanonicalizer canonicalizer = taskDef == null ? UriCanonicalizer.DEFAULT : taskDef.getUriCanonicalizer();
+            canonicalUri = canonicalizer.canonicalize(task.getRequest().getURI());
+        }
+        String result = fingerprint(task.getRequest(), canonicalUri, headerNames);
+        if (task.getRequest() instanceof HttpEntityEnclosingRequestBase) {
+            // 请求实体可能已被替换为读入内存的实体
+            task.setRequestEntity(((HttpEntityEnclosingRequestBase) task.getRequest()).getEntity());
+        }
+        return result;
+    }
+
+    /**
+     * 计算请求的指纹，按默认规则规范化地址
+     *
+     * @param headerNames 需要计入指纹的请求头
+     */
+    public static String fingerprint(HttpRequestBase request, Collection<String> headerNames) {
+        return fingerprint(request, UriCanonicalizer.DEFAULT.canonicalize(request.getURI()), headerNames);
+    }
+
+    /**
+     * 计算请求的指纹；不可重复读取的请求实体将被替换为读入内存的实体
+     *
+     * @param canonicalUri 规范化的地址，代替请求的地址计入指纹
+     * @param headerNames 需要计入指纹的请求头
+     */
+    public static String fingerprint(HttpRequestBase request, String canonicalUri, Collection<String> headerNames) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        putString(hasher, request.getMethod());
+        putString(hasher, canonicalUri);
+        for (String name : headerNames) {
+            putString(hasher, name.toLowerCase());
+            for (Header header : request.getHeaders(name)) {
+                putString(hasher, header.getValue());
+            }
+        }
+        if (request instanceof HttpEntityEnclosingRequestBase) {
+            HttpEntity entity = repeatableEntity((HttpEntityEnclosingRequestBase) request);
+            if (entity != null) {
+                putEntity(hasher, entity);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 获取可重复读取的请求实体，不可重复读取时读入内存并替换请求的实体
+     */
+    private static HttpEntity repeatableEntity(HttpEntityEnclosingRequestBase request) {
+        HttpEntity entity = request.getEntity();
+        if (entity == null || entity.isRepeatable()) {
+            return entity;
+        }
+        try {
+            entity = new BufferedHttpEntity(entity);
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        }
+        request.setEntity(entity);
+        return entity;
+    }
+
+    private static void putEntity(Hasher hasher, HttpEntity entity) {
+        if (entity.getContentType() != null) {
+            putString(hasher, entity.getContentType().getValue());
+        }
+        try {
+            entity.writeTo(Funnels.asOutputStream(hasher));
+        } catch (IOException e) {
+            throw new WrapperException(e);
+        }
+    }
+
+    private static void putString(Hasher hasher, String str) {
+        if (str != null) {
+            hasher.putString(str, StandardCharsets.UTF_8);
+        }
+        hasher.putByte(SEPARATOR);
+    }
+}
@@ -0,0 +1,174 @@
+package indi.crawler.task;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按主机的熔断器
+ *
+ * <p>每个主机有三种状态：
+ * <ul>
+ * <li>关闭：正常执行；连续失败达到阈值后打开
+ * <li>打开：在熔断时间内不执行该主机的任务，并暂停任务池中该主机的任务；熔断时间结束后进入半开
+ * <li>半开：只放行一个探测任务，其他任务稍后重试；探测成功则关闭，失败则重新打开，且熔断时间翻倍
+ * </ul>
+ *
+ * <p>主机宕机时，可避免队列中该主机的每个任务都耗尽重试次数
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+@Slf4j
+public class HostCircuitBreaker {
+    /** 连续失败多少次后打开 */
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    /** 初始熔断时间 */
+    private static final long DEFAULT_OPEN_MILLIS = 30 * 1000L;
+    /** 最大熔断时间 */
+    private static final long MAX_OPEN_MILLIS = 10 * 60 * 1000L;
+    /** 半开时，探测任务以外的任务的重试间隔 */
+    private static final long HALF_OPEN_RETRY_MILLIS = 1000L;
+
+    private final TaskPool pool;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    public HostCircuitBreaker(TaskPool pool) {
+        this(pool, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+    }
+
+    /**
+     * @param pool 用于暂停主机的任务池
+     * @param failureThreshold 连续失败多少次后打开
+     * @param openMillis 初始熔断时间
+     */
+    public HostCircuitBreaker(TaskPool pool, int failureThreshold, long openMillis) {
+        this.pool = pool;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * 判断是否允许执行该主机的任务
+     *
+     * @param host 主机名，为null时总是允许
+     * @return 允许则返回-1，否则返回建议的重试时间，millis
+     */
+    public long checkRequest(String host) {
+        if (host == null) {
+            return -1;
+        }
+        Circuit circuit = circuits.get(host);
+        return circuit == null ? -1 : circuit.checkRequest(System.currentTimeMillis());
+    }
+
+    /**
+     * 记录一次成功的执行
+     */
+    public void onSuccess(String host) {
+        if (host == null) {
+            return;
+        }
+        // 成功即关闭并清空失败记录，关闭且没有失败记录的主机不需要保留；打开前发出的请求的成功不影响打开状态
+        if (!circuits.isEmpty()) {
+            circuits.computeIfPresent(host, (h, circuit) -> circuit.isOpen() ? circuit : null);
+        }
+    }
+
+    /**
+     * 记录一次失败的执行（如连接异常）
+     */
+    public void onFailure(String host) {
+        if (host == null) {
+            return;
+        }
+        long until = circuits.computeIfAbsent(host, h -> new Circuit()).onFailure(System.currentTimeMillis());
+        if (until > 0) {
+            log.warn("主机 {} 连续失败，熔断至 {}", host, new Date(until));
+            pool.pauseHost(host, until);
+        }
+    }
+
+    /**
+     * 各主机的状态，用于日志
+     */
+    public Map<String, String> getStates() {
+        return circuits.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().toString()));
+    }
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final class Circuit {
+        private State state = State.CLOSED;
+        private int failures;
+        private long currentOpenMillis = openMillis;
+        private long openUntil;
+        /** 半开时，探测任务的放行时间 */
+        private long probeTime;
+
+        private synchronized long checkRequest(long now) {
+            switch (state) {
+            case OPEN:
+                if (now < openUntil) {
+                    return openUntil;
+                }
+                // 熔断时间结束，放行当前任务作为探测
+                state = State.HALF_OPEN;
+                probeTime = now;
+                return -1;
+            case HALF_OPEN:
+                if (now - probeTime >= currentOpenMillis) {
+                    // 探测任务迟迟没有结果（如因其他原因中止），再放行一个
+                    probeTime = now;
+                    return -1;
+                }
+                return now + HALF_OPEN_RETRY_MILLIS;
+            default:
+                return -1;
+            }
+        }
+
+        /**
+         * @return 若因此打开，返回熔断结束的时间，否则返回-1
+         */
+        private synchronized long onFailure(long now) {
+            switch (state) {
+            case HALF_OPEN:
+                // 探测失败，重新打开并延长熔断时间
+                currentOpenMillis = Math.min(currentOpenMillis * 2, MAX_OPEN_MILLIS);
+                return open(now);
+            case CLOSED:
+                if (++failures >= failureThreshold) {
+                    return open(now);
+                }
+                return -1;
+            default:
+                // 已打开，熔断前发出的请求的失败
+                return -1;
+            }
+        }
+
+        private synchronized boolean isOpen() {
+            return state == State.OPEN;
+        }
+
+        private long open(long now) {
+            state = State.OPEN;
+            failures = 0;
+            openUntil = now + currentOpenMillis;
+            return openUntil;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return state == State.CLOSED ? state + "(" + failures + ")" : state + " until " + new Date(openUntil);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package indi.crawler.task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import indi.crawler.task.def.TaskDef;
+
+/**
+ * 按主机划分的任务队列，用于实现访问礼貌（politeness）
+ *
+ * <p>每个主机有各自的就绪队列、下次允许访问的时间与正在执行的任务数；取任务时只会返回主机当前允许访问的任务，
+ * 不满足条件的任务留在队列中，而不是取出后再通过延期放回。
+ *
+ * <p>任务被取出后计入主机的执行数，直至任务离开出租集合（完成、延期或被舍弃）时通过 {@link #release(Task)} 归还。
+ *
+ * <p>同一任务定义的所有操作在同一把锁内完成；主机数通常很少，取任务时直接遍历主机
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+class HostFrontier {
+    private final long delayMillis;
+    private final int maxInFlight;
+
+    private final Map<String, Host> hosts = new HashMap<>();
+    /** 正在执行的任务 -> 主机 */
+    private final Map<Task, Host> inFlight = new IdentityHashMap<>();
+    private int size;
+
+    /**
+     * @param delayMillis 同一主机两次访问的最小间隔，millis；不大于0表示不限制
+     * @param maxInFlight 同一主机同时执行的最大任务数；不大于0表示不限制
+     */
+    HostFrontier(long delayMillis, int maxInFlight) {
+        this.delayMillis = delayMillis;
+        this.maxInFlight = maxInFlight;
+    }
+
+    HostFrontier(TaskDef taskDef) {
+        this(taskDef.getHostDelayMillis(), taskDef.getHostMaxInFlight());
+    }
+
+    synchronized boolean offer(Task task) {
+        String hostName = hostOf(task);
+        Host host = hosts.get(hostName);
+        if (host == null) {
+            host = new Host(hostName);
+            hosts.put(hostName, host);
+        }
+        host.queue.offer(task);
+        size++;
+        return true;
+    }
+
+    /**
+     * 取出允许访问的主机中优先级最高的任务
+     *
+     * @param now 当前时间，millis
+     * @return 没有允许访问的主机时返回null
+     */
+    synchronized Task poll(long now) {
+        Host chosen = null;
+        for (Iterator<Host> i = hosts.values().iterator(); i.hasNext();) {
+            Host host = i.next();
+            Task head = host.queue.peek();
+            if (head == null && host.isIdle(now)) {
+                // 主机已空闲，移除以免主机表无限增长
+                i.remove();
+                continue;
+            }
+            if (head != null && host.isEligible(now)
+                    && (chosen == null || head.compareTo(chosen.queue.peek()) < 0)) {
+                chosen = host;
+            }
+        }
+        if (chosen == null) {
+            return null;
+        }
+        Task task = chosen.queue.poll();
+        size--;
+        chosen.nextAllowedTime = now + Math.max(delayMillis, 0);
+        chosen.inFlight++;
+        inFlight.put(task, chosen);
+        return task;
+    }
+
+    /**
+     * 归还正在执行的任务所占用的主机执行数
+     *
+     * @return 任务是否占用了执行数
+     */
+    synchronized boolean release(Task task) {
+        Host host = inFlight.remove(task);
+        if (host == null) {
+            return false;
+        }
+        host.inFlight--;
+        if (host.queue.isEmpty() && host.isIdle(System.currentTimeMillis())) {
+            hosts.remove(host.name);
+        }
+        return true;
+    }
+
+    synchronized boolean remove(Task task) {
+        Host host = hosts.get(hostOf(task));
+        if (host != null && host.queue.remove(task)) {
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 有任务的主机中，最早允许访问的时间；只受执行数限制的主机需要等待任务归还，不计入
+     *
+     * @return 没有则返回-1
+     */
+    synchronized long nextEligibleTime(long now) {
+        long next = -1;
+        for (Host host : hosts.values()) {
+            if (!host.queue.isEmpty() && !host.isSaturated()) {
+                long time = Math.max(host.nextAllowedTime, now);
+                if (next == -1 || time < next) {
+                    next = time;
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * 输出各主机的排队数与执行数，用于日志
+     */
+    synchronized List<String> describeHosts() {
+        List<String> result = new ArrayList<>(hosts.size());
+        for (Host host : hosts.values()) {
+            result.add(host.name + ":" + host.queue.size() + "/" + host.inFlight);
+        }
+        return result;
+    }
+
+    private static String hostOf(Task task) {
+        return task.getHost() == null ? "" : task.getHost();
+    }
+
+    private final class Host {
+        private final String name;
+        /** 同一主机内，按任务的优先级排序 */
+        private final PriorityQueue<Task> queue = new PriorityQueue<>();
+        private long nextAllowedTime;
+        private int inFlight;
+
+        private Host(String name) {
+            this.name = name;
+        }
+
+        private boolean isSaturated() {
+            return maxInFlight > 0 && inFlight >= maxInFlight;
+        }
+
+        private boolean isIdle(long now) {
+            return inFlight == 0 && nextAllowedTime <= now;
+        }
+
+        private boolean isEligible(long now) {
+            return nextAllowedTime <= now && !isSaturated();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package indi.crawler.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 出租任务表，用于替代 PriorityBlockingQueue 实现的出租集合
+ *
+ * <p>任务按引用保存在ConcurrentHashMap中，同时按出租期限放入时间轮，检查超时任务时只会取出已到期的任务，
+ * 而不需要复制并遍历整个出租集合。出租、归还均为均摊O(1)，但都要进入时间轮的锁（临界区很短），并非无锁
+ *
+ * <p>出租期限为出租时间 + 任务的最大出租时间；未设置最大出租时间的任务，按默认的检查周期定期取出，以便检查其状态
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+class LeaseTable {
+    /** 未设置最大出租时间的任务的检查周期，millis */
+    static final long DEFAULT_CHECK_MILLIS = 5 * 60 * 1000L;
+
+    /** 任务 -> 出租期限；Task没有重写equals与hashCode，即按引用区分 */
+    private final ConcurrentHashMap<Task, Long> leases = new ConcurrentHashMap<>();
+    private final TimingWheel<Task> deadlines = new TimingWheel<>(10, 64);
+
+    /**
+     * 出租任务；重复出租将刷新出租期限
+     *
+     * @param now 出租时间，millis
+     */
+    void lease(Task task, long now) {
+        long deadline = now + (task.getMaxLeasedTime() > 0 ? task.getMaxLeasedTime() : DEFAULT_CHECK_MILLIS);
+        leases.put(task, deadline);
+        deadlines.add(task, deadline);
+    }
+
+    /**
+     * 归还任务
+     *
+     * @return 任务是否处于出租中
+     */
+    boolean release(Task task) {
+        if (leases.remove(task) == null) {
+            return false;
+        }
+        deadlines.remove(task);
+        return true;
+    }
+
+    boolean contains(Task task) {
+        return leases.containsKey(task);
+    }
+
+    int size() {
+        return leases.size();
+    }
+
+    Task[] toArray() {
+        return leases.keySet().toArray(new Task[0]);
+    }
+
+    /**
+     * 取出已超过出租期限的任务；这些任务仍处于出租中，并将在下一个检查周期后再次被取出，直至被归还
+     *
+     * @param now 当前时间，millis
+     */
+    Task[] pollExpired(long now) {
+        List<Task> expired = deadlines.pollExpired(now);
+        if (expired.isEmpty()) {
+            return new Task[0];
+        }
+        List<Task> result = new ArrayList<>(expired.size());
+        for (Task task : expired) {
+            // 期间已被归还的任务直接丢弃
+            if (leases.containsKey(task)) {
+                deadlines.add(task, now + DEFAULT_CHECK_MILLIS);
+                result.add(task);
+            }
+        }
+        return result.toArray(new Task[0]);
+    }
+}
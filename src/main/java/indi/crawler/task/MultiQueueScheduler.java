@@ -0,0 +1,279 @@
+package indi.crawler.task;
+
+import java.util.Arrays;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import indi.crawler.task.def.TaskDef;
+
+/**
+ * 按任务定义划分的多队列调度器，用于替代 TreeMap&lt;TaskDef, PriorityBlockingQueue&gt;
+ *
+ * <p>每个任务定义在注册时获得一个稠密的序号（slot），调度器按序号用数组定位其任务队列，不再需要查找与加锁；
+ * 另外按任务定义的优先级为每个队列分配一个位，用位图标记非空的队列，因此取出优先级最高的非空队列只需要一次位扫描，
+ * 任务数也由计数器维护，均为O(1)。
+ *
+ * <p>位图中的位表示“可能非空”：提供任务后置位；取任务时发现队列为空则清位，清位后再检查一次队列，若此时已非空则重新置位，
+ * 从而避免与并发提供任务的线程竞争时丢失任务。
+ *
+ * <p>任务定义的布局（序号到队列、优先级到位）只会在出现新的任务定义时重建，正常只在启动时发生
+ *
+ * <p>启用了按主机的访问礼貌的任务定义，其队列为 {@link HostFrontier}：队列非空但暂无可访问的主机时，保留其位，跳过该任务定义
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+class MultiQueueScheduler {
+    /** 当前布局，重建时整体替换 */
+    private volatile Layout layout = new Layout(new Slot[0]);
+    /** 可用任务总数 */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * 添加任务
+     */
+    boolean offer(Task task) {
+        Slot slot = getOrRegister(task.getTaskDef());
+        if (!slot.offer(task)) {
+            return false;
+        }
+        slot.size.incrementAndGet();
+        size.incrementAndGet();
+        // 置位；若期间布局被重建，需在新布局中再次置位
+        Layout current = layout;
+        while (true) {
+            current.setBit(current.rankOf(slot));
+            Layout latest = layout;
+            if (latest == current) {
+                return true;
+            }
+            current = latest;
+        }
+    }
+
+    /**
+     * 按任务定义的优先级、任务的优先级取出任务
+     *
+     * @param acceptor 判断是否接受取出的任务，返回false时将继续取下一个任务；拒绝的任务由acceptor负责处理
+     * @return 被接受的任务，没有则返回null
+     */
+    Task poll(Predicate<Task> acceptor) {
+        Layout current = layout;
+        long now = System.currentTimeMillis();
+        for (int w = 0; w < current.words(); w++) {
+            long bits = current.bits.get(w);
+            while (bits != 0) {
+                int rank = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                Slot slot = current.ranked[rank];
+                Task task;
+                while ((task = slot.poll(now)) != null) {
+                    slot.size.decrementAndGet();
+                    size.decrementAndGet();
+                    if (acceptor.test(task)) {
+                        return task;
+                    }
+                }
+                // 队列为空，清位后再次确认；按主机排队时，队列可能非空但暂无可访问的主机，此时保留位
+                if (slot.isEmpty()) {
+                    current.clearBit(rank);
+                    if (!slot.isEmpty()) {
+                        current.setBit(rank);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从可用队列中移除任务，O(n)，仅用于兜底
+     */
+    boolean remove(Task task) {
+        Slot slot = slotOf(task);
+        if (slot != null && slot.remove(task)) {
+            slot.size.decrementAndGet();
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 任务离开出租集合时，归还其占用的主机执行数
+     *
+     * @return 任务是否占用了主机执行数
+     */
+    boolean release(Task task) {
+        Slot slot = slotOf(task);
+        return slot != null && slot.frontier != null && slot.frontier.release(task);
+    }
+
+    /**
+     * 按主机排队的任务中，最早允许访问的时间，用于决定取不到任务时的挂起时间
+     *
+     * @return 没有则返回-1
+     */
+    long nextEligibleTime() {
+        long next = -1;
+        long now = System.currentTimeMillis();
+        for (Slot slot : layout.ranked) {
+            if (slot.frontier != null) {
+                long time = slot.frontier.nextEligibleTime(now);
+                if (time != -1 && (next == -1 || time < next)) {
+                    next = time;
+                }
+            }
+        }
+        return next;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * 按优先级从高到低遍历各任务定义及其可用任务数
+     */
+    void forEachSlot(Consumer<Slot> consumer) {
+        for (Slot slot : layout.ranked) {
+            consumer.accept(slot);
+        }
+    }
+
+    private Slot slotOf(Task task) {
+        TaskDef taskDef = task.getTaskDef();
+        Slot[] slots = layout.slots;
+        if (taskDef == null || taskDef.getSlot() < 0 || taskDef.getSlot() >= slots.length) {
+            return null;
+        }
+        return slots[taskDef.getSlot()];
+    }
+
+    private Slot getOrRegister(TaskDef taskDef) {
+        int index = taskDef.getSlot();
+        if (index < 0) {
+            throw new IllegalArgumentException("任务定义尚未向CrawlerJob注册：" + taskDef.getName());
+        }
+        Slot[] slots = layout.slots;
+        if (index < slots.length && slots[index] != null) {
+            return slots[index];
+        }
+        return register(taskDef);
+    }
+
+    private synchronized Slot register(TaskDef taskDef) {
+        int index = taskDef.getSlot();
+        Slot[] slots = layout.slots;
+        if (index < slots.length && slots[index] != null) {
+            return slots[index];
+        }
+        Slot[] newSlots = Arrays.copyOf(slots, Math.max(slots.length, index + 1));
+        Slot slot = new Slot(taskDef);
+        newSlots[index] = slot;
+        layout = new Layout(newSlots);
+        return slot;
+    }
+
+    /**
+     * 单个任务定义的任务队列
+     */
+    static final class Slot {
+        final TaskDef taskDef;
+        /** 同一任务定义内，按任务的优先级排序；启用按主机的访问礼貌时为null */
+        final PriorityBlockingQueue<Task> queue;
+        /** 启用按主机的访问礼貌时，按主机排队 */
+        final HostFrontier frontier;
+        final AtomicInteger size = new AtomicInteger();
+
+        private Slot(TaskDef taskDef) {
+            this.taskDef = taskDef;
+            if (taskDef.isHostPoliteness()) {
+                this.queue = null;
+                this.frontier = new HostFrontier(taskDef);
+            } else {
+                this.queue = new PriorityBlockingQueue<>();
+                this.frontier = null;
+            }
+        }
+
+        private boolean offer(Task task) {
+            return frontier == null ? queue.offer(task) : frontier.offer(task);
+        }
+
+        private Task poll(long now) {
+            return frontier == null ? queue.poll() : frontier.poll(now);
+        }
+
+        private boolean remove(Task task) {
+            return frontier == null ? queue.remove(task) : frontier.remove(task);
+        }
+
+        private boolean isEmpty() {
+            return frontier == null ? queue.isEmpty() : frontier.isEmpty();
+        }
+    }
+
+    /**
+     * 不可变的布局：序号 -> 队列，位 -> 队列，以及非空位图
+     */
+    private static final class Layout {
+        /** 按任务定义的序号索引 */
+        private final Slot[] slots;
+        /** 按任务定义的优先级从高到低排列，下标即位图中的位 */
+        private final Slot[] ranked;
+        /** 与slots对应的位 */
+        private final int[] ranks;
+        private final AtomicLongArray bits;
+
+        private Layout(Slot[] slots) {
+            this.slots = slots;
+            this.ranked = Arrays.stream(slots)
+                    .filter(s -> s != null)
+                    .sorted((s1, s2) -> s1.taskDef.compareTo(s2.taskDef))
+                    .toArray(Slot[]::new);
+            this.ranks = new int[slots.length];
+            for (int i = 0; i < ranked.length; i++) {
+                ranks[ranked[i].taskDef.getSlot()] = i;
+            }
+            this.bits = new AtomicLongArray(Math.max(1, (ranked.length + 63) >>> 6));
+            // 新布局保守地将所有位置位，由取任务的线程清除空队列的位
+            for (int i = 0; i < ranked.length; i++) {
+                setBit(i);
+            }
+        }
+
+        private int words() {
+            return bits.length();
+        }
+
+        private int rankOf(Slot slot) {
+            return ranks[slot.taskDef.getSlot()];
+        }
+
+        private void setBit(int rank) {
+            int w = rank >>> 6;
+            long mask = 1L << rank;
+            long old;
+            while (((old = bits.get(w)) & mask) == 0) {
+                if (bits.compareAndSet(w, old, old | mask)) {
+                    return;
+                }
+            }
+        }
+
+        private void clearBit(int rank) {
+            int w = rank >>> 6;
+            long mask = 1L << rank;
+            long old;
+            while (((old = bits.get(w)) & mask) != 0) {
+                if (bits.compareAndSet(w, old, old & ~mask)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -1,24 +1,43 @@
 package indi.crawler.task;
 
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-
+import indi.crawler.codec.TaskCodec;
+import indi.crawler.codec.TaskRecord;
+import indi.crawler.codec.ValueCodec;
 import indi.crawler.filter.TaskFilter;
+import indi.crawler.monitor.Monitor.MonitorThread;
+import indi.crawler.recoder.RedisRecorder;
 import indi.crawler.task.def.TaskDef;
 import indi.crawler.util.RedisUtils;
 import indi.exception.WrapperException;
-import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.ZAddArgs;
+import io.lettuce.core.api.async.RedisAsyncCommands;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -31,27 +50,60 @@ import lombok.extern.slf4j.Slf4j;
  * 
  * <p>Redis的消息队列通过 lpush 与 brpop 实现
  * 
+ * <p>2026.10.18 新增可靠模式：brpop取出的任务只记录在本地，节点宕机时任务会丢失。可靠模式下，任务在同一个Lua脚本内从队列取出并
+ * 写入出租有序集合（分数为出租期限），任务完成、延期或重新提供时才从中删除（确认）；各节点定时续期本节点出租的任务，
+ * 并将期限已过的任务放回原队列的队尾，由其他节点重新执行。因此多个节点可以共用同一个Redis，任一节点宕机都不会丢失任务
+ * 
+ * <p>2026.10.18 延期任务存放于以唤醒时间为分数的有序集合，由各节点的线程通过Lua脚本原子地将到期的任务批量放回队列
+ * 
+ * <p>2026.10.18 取消取任务的全局锁与brpop，改为由预取线程通过Lua脚本按优先级批量取出任务，放入本地有界的预取缓冲区，
+ * 爬虫线程只从缓冲区取任务
+ * 
  * @author DragonBoom
  *
  */
 @Slf4j
-public class RedisMQCrawlerTaskPool implements TaskPool {
+public class RedisMQCrawlerTaskPool extends BasicTaskPool {
     private CrawlerController controller;
     private String redisURI;
 //    private RedisClient client;
 //    private RedisCommands<String,Object> commands;
 //    private ThreadLocal<RedisCommands<String,Object>> commandsThreadLocal;
     
-    private PriorityBlockingQueue<Task> leaseds;
+    private LeaseTable leaseds;
     
     private String KEY_PREFIX = "TASK-";
     
     private List<TaskDef> taskDefs;// 线程不安全的队列
     /**Redis 键数组，按优先级从大到小排列*/
     private String[] redisKeys;
+    /**各队列的出租有序集合的键，与 {@link #redisKeys} 的顺序相同*/
+    private volatile String[] leasesKeys = new String[0];
+    /**各队列的延期有序集合的键，与 {@link #redisKeys} 的顺序相同*/
+    private volatile String[] deferralsKeys = new String[0];
     
     private Lock taskDefsLock; 
     
+    /**任务的编解码器*/
+    private ValueCodec<TaskRecord> taskCodec = TaskCodec.DEFAULT;
+    
+    /**Redis中没有任务时，预取线程轮询的最短与最长间隔*/
+    private static final long MIN_POLL_BACKOFF_MILLIS = 50;
+    private static final long MAX_POLL_BACKOFF_MILLIS = 1000;
+    /**本地预取缓冲区，按任务优先级排序*/
+    private PriorityBlockingQueue<Task> prefetch;
+    /**预取缓冲区的容量，为爬虫线程数的2倍*/
+    private int prefetchCapacity;
+    private PrefetchThread prefetchThread;
+    
+    /**是否启用可靠模式*/
+    private boolean reliable;
+    /**可靠模式下，本节点出租的任务 -> 出租有序集合中的成员*/
+    private Map<Task, byte[]> leaseMembers;
+    /**本节点的标识，用于区分有序集合中不同节点写入的相同任务*/
+    private String nodeId;
+    private AtomicLong memberSequence;
+    
     private void init(String redisURI) {
         taskDefs = new LinkedList<>();
         taskDefsLock = new ReentrantLock();
@@ -70,13 +122,46 @@ public class RedisMQCrawlerTaskPool implements TaskPool {
 //        };
 
         
-        leaseds = new PriorityBlockingQueue<>();
+        leaseds = new LeaseTable();
+        nodeId = ManagementFactory.getRuntimeMXBean().getName();
+        memberSequence = new AtomicLong();
+        new DeferralMoverThread(DEFERRAL_MOVER_MAX_PARK_MILLIS).startDeamon(controller);
+        
+        prefetchCapacity = Math.max(2, controller.getJob().getThreadCount() * 2);
+        prefetch = new PriorityBlockingQueue<>(prefetchCapacity);
+        recorder = controller.getJob().getRecorder();
+        if (recorder == null) {
+            // 默认的记录器按工程名保存记录；没有任务需要检查记录时不需要记录器
+            String name = controller.getJob().getName();
+            if (name != null) {
+                recorder = new RedisRecorder(redisURI, name);
+            } else if (controller.getJob().getTaskDefs().stream().anyMatch(TaskDef::isNeedCheckRecord)) {
+                throw new IllegalStateException("Redis队列任务池中有需要检查记录的任务，需通过CrawlerJob.withName设置工程名，或通过withRecorder指定记录器");
+            }
+        }
+        
+        if (reliable) {
+            leaseMembers = new ConcurrentHashMap<>();
+            new LeaseKeeperThread(LEASE_RENEW_MILLIS).startDeamon(controller);
+        }
+        // 可靠模式的数据结构需先初始化
+        prefetchThread = new PrefetchThread();
+        prefetchThread.startDeamon(controller);
     }
     
     public RedisMQCrawlerTaskPool(String redisURI, CrawlerController controller) {
-        log.info("使用Redis消息队列爬虫任务池");
+        this(redisURI, controller, false);
+    }
+    
+    /**
+     * @param reliable 是否启用可靠模式
+     * @since 2026.10.18
+     */
+    public RedisMQCrawlerTaskPool(String redisURI, CrawlerController controller, boolean reliable) {
+        log.info("使用Redis消息队列爬虫任务池{}", reliable ? "（可靠模式）" : "");
         this.redisURI = redisURI;
         this.controller = controller;
+        this.reliable = reliable;
         init(redisURI);
     }
     
@@ -87,11 +172,94 @@ public class RedisMQCrawlerTaskPool implements TaskPool {
     }
 
     @Override
-    public boolean offer(Task task) {
-        // TODO check record
+    boolean offer0(Task task) {
+        boolean unrecorded = !task.isRecorded();
+        // 检查记录，多个节点共用Redis中的记录，不会重复提供同一个任务
+        if (isDuplicate(task)) {
+            return false;
+        }
         // 获取redis key
-        String redisListKey = getRedisListKey(task.getTaskDef());
-        TaskDef taskDef = task.getTaskDef();
+        String redisListKey = registerTaskDef(task.getTaskDef());
+        // remove from leaseds
+        leaseds.release(task);
+        
+        RedisFuture<Long> future = RedisUtils.getAsyncBytesCommands(redisURI).lpush(redisListKey, encodeTask(task));
+        if (unrecorded && task.isRecorded()) {
+            // 放入失败时撤销本次添加的记录；回调在lettuce的线程中执行，不能在其中等待Redis，因此异步执行
+            future.whenCompleteAsync((result, t) -> {
+                if (t != null) {
+                    log.error("提供任务失败，撤销其记录：{}", task.getUri(), t);
+                    undoRecord(task);
+                }
+            });
+        }
+        // 放回队列后再确认，宕机时最多重复执行，不会丢失
+        acknowledge(task);
+        return true;
+    }
+    
+    /**
+     * 按Redis键分组，每组只执行一次多值的lpush，并等待所有命令完成
+     * 
+     * @since 2026.10.18
+     */
+    @Override
+    List<Task> offerAll0(Collection<Task> tasks) {
+        Set<Task> unrecorded = unrecorded(tasks);
+        // 一次往返检查所有任务的记录
+        List<Task> accepted = filterDuplicates(tasks);
+        if (accepted.isEmpty()) {
+            return accepted;
+        }
+        Map<String, List<Task>> grouped = new LinkedHashMap<>();
+        for (Task task : accepted) {
+            String redisListKey = registerTaskDef(task.getTaskDef());
+            leaseds.release(task);
+            grouped.computeIfAbsent(redisListKey, k -> new ArrayList<>()).add(task);
+        }
+        RedisAsyncCommands<String, byte[]> commands = RedisUtils.getAsyncBytesCommands(redisURI);
+        List<RedisFuture<Long>> futures = new ArrayList<>(grouped.size());
+        for (Entry<String, List<Task>> e : grouped.entrySet()) {
+            byte[][] values = e.getValue().stream().map(this::encodeTask).toArray(byte[][]::new);
+            futures.add(commands.lpush(e.getKey(), values));
+        }
+        WrapperException failure = null;
+        Iterator<List<Task>> groups = grouped.values().iterator();
+        for (RedisFuture<Long> future : futures) {
+            List<Task> group = groups.next();
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WrapperException(e);
+            } catch (ExecutionException e) {
+                // 放入失败时撤销本次添加的记录，以便之后可以再次提供
+                for (Task task : group) {
+                    if (unrecorded.contains(task)) {
+                        undoRecord(task);
+                    }
+                }
+                if (failure == null) {
+                    failure = new WrapperException(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        for (Task task : accepted) {
+            acknowledge(task);
+        }
+        return accepted;
+    }
+    
+    /**
+     * 若没有处理过该任务定义，则添加其redis key，并按任务定义优先级重新排序
+     * 
+     * @return 任务定义对应的redis key
+     */
+    private String registerTaskDef(TaskDef taskDef) {
+        String redisListKey = getRedisListKey(taskDef);
         if (!taskDefs.contains(taskDef)) {// 判断条件为 < 0 而不是!= -1
             taskDefsLock.lock();
             try {
@@ -106,26 +274,69 @@ public class RedisMQCrawlerTaskPool implements TaskPool {
                             .collect(Collectors.toList());
                     redisKeys = new String[keyList.size()];
                     keyList.toArray(redisKeys);
+                    leasesKeys = keyList.stream().map(key -> zsetKeyOf(LEASES, key)).toArray(String[]::new);
+                    deferralsKeys = keyList.stream().map(key -> zsetKeyOf(DEFERRALS, key)).toArray(String[]::new);
                 }
             } finally {
                 taskDefsLock.unlock();
             }
         }
-        // remove from leaseds
-        leaseds.remove(task);
-        
-        SimpleTask simpleTask = new SimpleTask(task.getTaskDefName(), task.getRequestEntityStr(), task.getUri());
-        RedisUtils.getAsyncCommands(redisURI).lpush(redisListKey, simpleTask);
-        return true;
+        return redisListKey;
+    }
+    
+    /**
+     * 用二进制编解码器编码任务，取代Java序列化的SimpleTask；同时保留任务的优先级、尝试次数与参数
+     * 
+     * @since 2026.10.18
+     */
+    private byte[] encodeTask(Task task) {
+        return taskCodec.encode(TaskRecord.of(task));
+    }
+    
+    /**
+     * 解码任务，兼容旧版本写入的Java序列化的SimpleTask
+     * 
+     * @since 2026.10.18
+     */
+    @SuppressWarnings("deprecation")
+    private Task decodeTask(byte[] bytes) {
+        if (TaskCodec.isEncoded(bytes)) {
+            return toTask(taskCodec.decode(bytes));
+        }
+        Object obj = RedisUtils.decodeObject(bytes);
+        if (obj instanceof SimpleTask) {
+            SimpleTask simpleTask = (SimpleTask) obj;
+            return toTask(new TaskRecord(simpleTask.getTaskDefName(), simpleTask.getUri(),
+                    simpleTask.getRequestEntityStr(), 0, 0, null));
+        } else {
+            throw new IllegalArgumentException("类型错误, " + obj.getClass());
+        }
     }
     
 
+    /**
+     * 写入延期有序集合，成员格式与出租有序集合相同，到期后由 {@link DeferralMoverThread} 放回原队列
+     * 
+     * @since 2026.10.18
+     */
     @Override
-    public boolean deferral(Task task, Long wakeUpTime) {
-        // 暂不实现。。
-        return offer(task);
+    boolean deferral0(Task task, Long wakeUpTime) {
+        if (wakeUpTime == null || wakeUpTime <= System.currentTimeMillis()) {
+            return offer0(task);
+        }
+        String redisListKey = registerTaskDef(task.getTaskDef());
+        leaseds.release(task);
+        
+        byte[] member = toMember(redisListKey, nextToken(), encodeTask(task));
+        RedisUtils.getAsyncBytesCommands(redisURI).zadd(zsetKeyOf(DEFERRALS, redisListKey), wakeUpTime.doubleValue(), member);
+        acknowledge(task);
+        return true;
     }
     
+    /**
+     * @deprecated 2026.10.18 改用 {@link TaskCodec}，仅用于读取旧版本写入的任务
+     */
+    @Deprecated
     @Getter
     @Setter
     @ToString
@@ -144,118 +355,531 @@ public class RedisMQCrawlerTaskPool implements TaskPool {
                 .append(taskDef.getName()).toString();
     }
     
-    /**pop阻塞时间*/
-    private int brpopTimeoutSeconds = 3;
-    /**pop失败睡眠时间*/
-    private int brpopFailDeferralSeconds = 4;
-    
-    private Lock pollLock = new ReentrantLock();
+    /**
+     * 队列对应的出租或延期有序集合的键，如 TASK-LEASES-(优先级)-任务定义名；按队列区分，使用不同任务定义的爬虫工程互不影响
+     * 
+     * @param kind {@link #LEASES} 或 {@link #DEFERRALS}
+     * @since 2026.10.18
+     */
+    private String zsetKeyOf(String kind, String redisListKey) {
+        return KEY_PREFIX + kind + "-" + redisListKey.substring(KEY_PREFIX.length());
+    }
     
+    /**
+     * 从本地预取缓冲区取出任务，不访问Redis；缓冲区不足时唤醒预取线程
+     * 
+     * <p>2026.10.18 此前所有线程在同一把锁内逐个brpop，同一时间只有一个线程能等待Redis，且每个任务都需要一次往返
+     */
+    @Override
+    Task poll0() {
+        Task task = prefetch.poll();
+        afterTake(task);
+        return task;
+    }
     
-    private volatile Long wakeUpMillis = System.currentTimeMillis();
+    /**
+     * 在预取缓冲区上阻塞等待，由预取线程在取得任务时唤醒
+     */
+    @Override
+    Task poll0(long timeout, TimeUnit unit) throws InterruptedException {
+        Task task = prefetch.poll();
+        if (task == null) {
+            prefetchThread.wakeUp();
+            task = prefetch.poll(timeout, unit);
+        }
+        afterTake(task);
+        return task;
+    }
     
     /**
-     * 由于Redis是单线程，当poll阻塞时，无法push
+     * 优先取出预取缓冲区中的任务，不足时直接从Redis批量取出
+     * 
+     * @since 2026.10.18
      */
     @Override
-    public Task poll() {
-//        // 若第一个插入还没有完成，等待后返回null
-//        long sleepMillis = getNeedSleepMillis();
-//        
-//        if (sleepMillis > 0) {
-//            try {
-//                Thread.sleep(sleepMillis);
-//            } catch (InterruptedException e) {
-//                throw new WrapperException(e);
-//            }
-//            // 直接返回null，表明该线程拿不到爬虫任务
-//            return null;
-//        }
-        KeyValue<String, Object> kv = null;
-        pollLock.lock();
-        try {
-//            sleepMillis = getNeedSleepMillis();
-//            if (sleepMillis > 0) {
-//                // 直接返回null，表明该线程拿不到爬虫任务
-//                return null;
-//            }
-            kv = RedisUtils.getAsyncCommands(redisURI).brpop(brpopTimeoutSeconds, redisKeys).get();
-            // 只要有一个线程poll超时或队列为空时，其他所有线程就等待固定的一段时间，确保不因为poll阻塞导致无法push，从而造成死循环
-            // 2019.08.25: 理论上不应该出现这种多个线程一起阻塞的情况。之前应该是因为不同线程共用同一个连接才导致了阻塞
-            if (kv == null) {
-//                // pop失败，计算下一次pop的最快时间
-//                Calendar calendar = Calendar.getInstance();
-//                calendar.add(Calendar.SECOND, (int) brpopFailDeferralSeconds);
-//                wakeUpMillis = calendar.getTimeInMillis();
-//                log.warn("pop fail will sleep {} seconds", brpopFailDeferralSeconds);
-                return null;
+    List<Task> pollBatch0(int max) {
+        List<Task> tasks = new ArrayList<>(Math.min(max, prefetchCapacity));
+        if (max <= 0) {
+            return tasks;
+        }
+        prefetch.drainTo(tasks, max);
+        if (tasks.size() < max) {
+            tasks.addAll(fetch(max - tasks.size()));
+        }
+        long now = System.currentTimeMillis();
+        for (Task task : tasks) {
+            leaseds.lease(task, now);
+        }
+        prefetchThread.wakeUp();
+        return tasks;
+    }
+    
+    /**
+     * 任务从缓冲区交给爬虫线程后才加入出租集合，以免在缓冲区中等待的时间被计入出租时间
+     */
+    private void afterTake(Task task) {
+        if (task != null) {
+            leaseds.lease(task, System.currentTimeMillis());
+        }
+        if (prefetch.size() <= prefetchCapacity / 2) {
+            prefetchThread.wakeUp();
+        }
+    }
+    
+    /**
+     * 按任务定义优先级依次从各队列的队尾取出任务，直至取够数量；所有队列在同一脚本内处理，保证原子性
+     * 
+     * <p>lpush + rpop 组成先进先出的队列，因此从队尾开始截取，并在脚本中倒序
+     */
+    private static final String POLL_BATCH_SCRIPT = "local max = tonumber(ARGV[1]) "
+            + "local result = {} "
+            + "for _, key in ipairs(KEYS) do "
+            + "  local n = max - #result "
+            + "  if n <= 0 then break end "
+            + "  local items = redis.call('LRANGE', key, -n, -1) "
+            + "  if #items > 0 then "
+            + "    redis.call('LTRIM', key, 0, -#items - 1) "
+            + "    for i = #items, 1, -1 do result[#result + 1] = items[i] end "
+            + "  end "
+            + "end "
+            + "return result";
+    
+    /**
+     * 用一次Lua脚本从Redis批量取出任务；可靠模式下同时写入出租有序集合
+     * 
+     * @since 2026.10.18
+     */
+    private List<Task> fetch(int max) {
+        if (reliable) {
+            return reliablePollBatch(max);
+        }
+        List<Object> values = await(RedisUtils.getAsyncBytesCommands(redisURI)
+                .<List<Object>>eval(POLL_BATCH_SCRIPT, ScriptOutputType.MULTI, redisKeys, toBytes(max)));
+        List<Task> tasks = new ArrayList<>(values.size());
+        for (Object value : values) {
+            tasks.add(decodeTask((byte[]) value));
+        }
+        return tasks;
+    }
+    
+    /**
+     * 保持预取缓冲区的任务数：低于一半时批量补足，Redis中没有任务时退避等待
+     * 
+     * <p>缓冲区按任务的优先级排序，但其中的任务不会被之后进入Redis的更高优先级的任务超过，因此容量不宜过大
+     * 
+     * <p>结束时将缓冲区中的任务放回Redis
+     * 
+     * @since 2026.10.18
+     */
+    private class PrefetchThread extends MonitorThread {
+        private volatile boolean parked;
+        /** 预取循环结束时计数，用于结束时等待正在执行的取出 */
+        private final CountDownLatch stopped = new CountDownLatch(1);
+        
+        public PrefetchThread() {
+            super("RedisPrefetchThread", MAX_POLL_BACKOFF_MILLIS);
+        }
+        
+        /**
+         * 唤醒挂起中的预取线程
+         */
+        void wakeUp() {
+            if (parked) {
+                LockSupport.unpark(this);
             }
-        } catch (InterruptedException | ExecutionException e) {
-            // 结束线程时，由于线程仍在这里阻塞，会导致无意义的报错，因此这里加这个判断 FIXME: 为啥？
-            e.printStackTrace();
-        } finally {
-            pollLock.unlock();
         }
-        Object obj = kv.getValue();
-        if (obj instanceof SimpleTask) {
-            TaskFactory taskFactory = controller.getTaskFactory();
-            SimpleTask simpleTask = (SimpleTask) obj;
-
-            Task task = taskFactory.build(simpleTask.getTaskDefName(), simpleTask.getUri(), simpleTask.getRequestEntityStr());
-            // ??
-            task.setController(controller);
-            TaskDef taskDef = controller.getJob().getTaskDef(task.getTaskDefName());
-            task.setTaskDef(taskDef);
-            // add to leaseds
-            leaseds.add(task);
-//            System.out.println("poll + " + task);
-            return task;
-        } else {
-            throw new IllegalArgumentException("类型错误, " + obj.getClass());
+        
+        @Override
+        public void run0() {
+            long backoff = MIN_POLL_BACKOFF_MILLIS;
+            while (!retire) {
+                int size = prefetch.size();
+                if (size <= prefetchCapacity / 2) {
+                    List<Task> tasks;
+                    try {
+                        tasks = fetch(prefetchCapacity - size);
+                    } catch (RuntimeException e) {
+                        if (retire) {
+                            break;
+                        }
+                        // Redis暂时不可用时，退避后重试
+                        log.error("预取任务失败", e);
+                        tasks = new ArrayList<>();
+                    }
+                    if (!tasks.isEmpty()) {
+                        prefetch.addAll(tasks);
+                        if (retire) {
+                            // 取出期间已结束，由下方放回
+                            break;
+                        }
+                        signalAvailable(tasks.size());
+                        backoff = MIN_POLL_BACKOFF_MILLIS;
+                        continue;
+                    }
+                    park(backoff);
+                    backoff = Math.min(backoff * 2, MAX_POLL_BACKOFF_MILLIS);
+                } else {
+                    // 缓冲区充足，挂起至被取出任务的线程唤醒
+                    park(sleepMillis);
+                }
+            }
+            // 结束前可能刚取出了一批任务，再次放回
+            writeBack();
+            stopped.countDown();
+        }
+        
+        private void park(long millis) {
+            parked = true;
+            try {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+            } finally {
+                parked = false;
+            }
+        }
+        
+        /**
+         * 等待预取循环结束（即正在执行的取出返回）后再放回，以免其取出的任务在放回后才放入缓冲区；等待超时时由本线程结束前放回
+         */
+        @Override
+        public void retire() {
+            super.retire();
+            LockSupport.unpark(this);
+            try {
+                stopped.await(MAX_POLL_BACKOFF_MILLIS * 3, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writeBack();
+        }
+        
+        /**
+         * 放回缓冲区中的任务，可靠模式下同时确认
+         */
+        private void writeBack() {
+            List<Task> tasks = new ArrayList<>(prefetch.size());
+            prefetch.drainTo(tasks);
+            if (!tasks.isEmpty()) {
+                log.info("放回 {} 个预取的任务", tasks.size());
+                offerAll0(tasks);
+            }
         }
     }
     
+    /**出租有序集合的键的类型，见 {@link #zsetKeyOf(String, String)}*/
+    private static final String LEASES = "LEASES";
+    /**出租期限，超过该时间未续期的任务将被放回队列*/
+    private static final long LEASE_VISIBILITY_MILLIS = 2 * 60 * 1000L;
+    /**续期及回收过期出租的间隔，需明显小于出租期限*/
+    private static final long LEASE_RENEW_MILLIS = 30 * 1000L;
+    /**每次最多回收的过期出租数*/
+    private static final int REAP_BATCH_SIZE = 100;
+    
     /**
-     * 获取需要睡眠的时间
+     * 按任务定义优先级依次从各队列的队尾取出任务，并写入该队列的出租有序集合；KEYS为 队列, 出租有序集合 交替排列
      * 
-     * @return
+     * <p>成员为 队列键 + \n + 出租标识 + \n + 任务，以便回收时放回原队列；出租标识确保相同的任务不会覆盖彼此的出租记录
      */
-    private long getNeedSleepMillis() {
-        return redisKeys.length == 0 ? this.brpopTimeoutSeconds : wakeUpMillis - getCurrentMillis();
+    private static final String RELIABLE_POLL_SCRIPT = "local n = tonumber(ARGV[3]) "
+            + "local result = {} "
+            + "for i = 1, #KEYS, 2 do "
+            + "  while #result < n do "
+            + "    local item = redis.call('RPOP', KEYS[i]) "
+            + "    if not item then break end "
+            + "    local member = KEYS[i] .. '\\n' .. ARGV[2] .. '-' .. #result .. '\\n' .. item "
+            + "    redis.call('ZADD', KEYS[i + 1], ARGV[1], member) "
+            + "    result[#result + 1] = member "
+            + "  end "
+            + "  if #result >= n then break end "
+            + "end "
+            + "return result";
+    
+    /**
+     * 将各有序集合（出租或延期，KEYS）中分数已过的成员放回原队列的队尾（即下一个被取出的位置），并删除该成员；所有有序集合合计最多移动ARGV[2]个
+     * 
+     * <p>返回 {移动的数量, 剩余成员中最小的分数（没有则为-1）}
+     * 
+     * <p>原队列的键取自成员本身，没有通过KEYS声明，因此不适用于Redis集群
+     */
+    private static final String MOVE_DUE_SCRIPT = "local limit = tonumber(ARGV[2]) "
+            + "local moved = 0 "
+            + "local nextScore = -1 "
+            + "for _, key in ipairs(KEYS) do "
+            + "  if moved < limit then "
+            + "    local due = redis.call('ZRANGEBYSCORE', key, '-inf', ARGV[1], 'LIMIT', 0, limit - moved) "
+            + "    for _, member in ipairs(due) do "
+            + "      local first = string.find(member, '\\n', 1, true) "
+            + "      local second = string.find(member, '\\n', first + 1, true) "
+            + "      redis.call('RPUSH', string.sub(member, 1, first - 1), string.sub(member, second + 1)) "
+            + "      redis.call('ZREM', key, member) "
+            + "    end "
+            + "    moved = moved + #due "
+            + "  end "
+            + "  local head = redis.call('ZRANGE', key, 0, 0, 'WITHSCORES') "
+            + "  if #head > 0 then "
+            + "    local score = tonumber(head[2]) "
+            + "    if nextScore < 0 or score < nextScore then nextScore = score end "
+            + "  end "
+            + "end "
+            + "return {moved, nextScore}";
+    
+    /**延期有序集合的键的类型，见 {@link #zsetKeyOf(String, String)}*/
+    private static final String DEFERRALS = "DEFERRALS";
+    /**每次最多放回的到期延期任务数*/
+    private static final int DEFERRAL_MOVE_BATCH_SIZE = 500;
+    /**没有延期任务时，放回线程的最长挂起时间；其他节点新增的延期任务最多因此推迟该时间*/
+    private static final long DEFERRAL_MOVER_MAX_PARK_MILLIS = 1000;
+    
+    /**
+     * 可靠模式下取出任务：在同一个Lua脚本内从队列取出并写入出租有序集合
+     * 
+     * @since 2026.10.18
+     */
+    private List<Task> reliablePollBatch(int max) {
+        String[] listKeys = redisKeys;
+        String[] zsetKeys = leasesKeys;
+        if (zsetKeys.length != listKeys.length) {
+            return new ArrayList<>();// 尚未注册任务定义
+        }
+        String[] keys = new String[listKeys.length * 2];
+        for (int i = 0; i < listKeys.length; i++) {
+            keys[2 * i] = listKeys[i];
+            keys[2 * i + 1] = zsetKeys[i];
+        }
+        long deadline = System.currentTimeMillis() + LEASE_VISIBILITY_MILLIS;
+        String token = nextToken();
+        List<Object> members;
+        try {
+            members = RedisUtils.getAsyncBytesCommands(redisURI)
+                    .<List<Object>>eval(RELIABLE_POLL_SCRIPT, ScriptOutputType.MULTI, keys, toBytes(deadline),
+                            toBytes(token), toBytes(max))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WrapperException(e);
+        } catch (ExecutionException e) {
+            throw new WrapperException(e);
+        }
+        List<Task> tasks = new ArrayList<>(members.size());
+        for (Object member : members) {
+            byte[] bytes = (byte[]) member;
+            Task task = decodeTask(payloadOf(bytes));
+            leaseMembers.put(task, bytes);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+    
+    /**
+     * 可靠模式下，确认任务已离开本节点（完成、延期或重新提供），删除其出租记录
+     * 
+     * <p>不等待命令完成；放回队列、延期与删除出租记录都使用同一个字节连接，同一连接的命令按顺序执行，因此在此之前的放回队列的命令总是先执行
+     */
+    private void acknowledge(Task task) {
+        if (!reliable) {
+            return;
+        }
+        byte[] member = leaseMembers.remove(task);
+        if (member != null) {
+            RedisUtils.getAsyncBytesCommands(redisURI).zrem(leasesKeyOf(member), member);
+        }
+    }
+    
+    /**
+     * 截取成员中第二个换行符之后的任务
+     */
+    private static byte[] payloadOf(byte[] member) {
+        int newlines = 0;
+        for (int i = 0; i < member.length; i++) {
+            if (member[i] == '\n' && ++newlines == 2) {
+                return Arrays.copyOfRange(member, i + 1, member.length);
+            }
+        }
+        throw new IllegalArgumentException("出租记录格式错误");
+    }
+    
+    /**
+     * 出租记录所在的出租有序集合的键，由成员中第一个换行符之前的队列键得出
+     */
+    private String leasesKeyOf(byte[] member) {
+        for (int i = 0; i < member.length; i++) {
+            if (member[i] == '\n') {
+                return zsetKeyOf(LEASES, new String(member, 0, i, StandardCharsets.UTF_8));
+            }
+        }
+        throw new IllegalArgumentException("出租记录格式错误");
     }
     
-    Cache<String, Long> nowCache = CacheBuilder.newBuilder().expireAfterWrite(2, TimeUnit.SECONDS).build();
+    private String nextToken() {
+        return nodeId + ":" + memberSequence.incrementAndGet();
+    }
+    
+    private static byte[] toMember(String listKey, String token, byte[] payload) {
+        byte[] prefix = (listKey + "\n" + token + "\n").getBytes(StandardCharsets.UTF_8);
+        byte[] member = Arrays.copyOf(prefix, prefix.length + payload.length);
+        System.arraycopy(payload, 0, member, prefix.length, payload.length);
+        return member;
+    }
     
     /**
-     * 缓存当前时间，避免频繁请求当前时间浪费资源
+     * 执行 {@link #MOVE_DUE_SCRIPT}
      * 
-     * FIXME: 有这个必要吗？
+     * @return {移动的数量, 剩余成员中最小的分数（没有则为-1）}
      */
-    private long getCurrentMillis() {
+    private long[] moveDue(String[] zsetKeys, long now, int batchSize) {
+        if (zsetKeys.length == 0) {
+            return new long[] { 0, -1 };
+        }
+        List<Object> result = await(RedisUtils.getAsyncBytesCommands(redisURI).<List<Object>>eval(MOVE_DUE_SCRIPT,
+                ScriptOutputType.MULTI, zsetKeys, toBytes(now), toBytes(batchSize)));
+        long moved = ((Number) result.get(0)).longValue();
+        if (moved > 0) {
+            signalAvailable();
+        }
+        return new long[] { moved, ((Number) result.get(1)).longValue() };
+    }
+    
+    private static <T> T await(RedisFuture<T> future) {
         try {
-            return nowCache.get("now", () -> System.currentTimeMillis());
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WrapperException(e);
         } catch (ExecutionException e) {
             throw new WrapperException(e);
         }
     }
-
-    @Override
-    public Task[] cloneLeased() {
-        // 原子地获取数组
-        Object[] array = leaseds.toArray();
+    
+    private static byte[] toBytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 可靠模式下，定时续期本节点出租的任务，并回收所有节点中期限已过的出租
+     * 
+     * <p>出租期限使用各节点的本地时间，要求节点间的时钟误差远小于出租期限
+     * 
+     * @since 2026.10.18
+     */
+    private class LeaseKeeperThread extends MonitorThread {
+        
+        public LeaseKeeperThread(long millis) {
+            super("RedisLeaseKeeperThread", millis);
+        }
         
-        // 改变数组类型
-        Task[] result = new Task[array.length];
-        for (int i = 0; i < result.length; i++) {
-            result[i] = (Task) array[i];
+        @Override
+        public void run0() {
+            try {
+                renew();
+                reap();
+            } catch (RuntimeException e) {
+                // Redis暂时不可用时，等待下次执行
+                log.error("维护Redis出租记录失败", e);
+            }
+        }
+        
+        private void renew() {
+            if (leaseMembers.isEmpty()) {
+                return;
+            }
+            RedisAsyncCommands<String, byte[]> commands = RedisUtils.getAsyncBytesCommands(redisURI);
+            double deadline = System.currentTimeMillis() + LEASE_VISIBILITY_MILLIS;
+            // 只更新仍存在的成员；已被回收的出租不再续期，以免出租记录与队列中同时存在该任务
+            ZAddArgs xx = ZAddArgs.Builder.xx();
+            List<RedisFuture<Long>> futures = new ArrayList<>(leaseMembers.size());
+            for (byte[] member : leaseMembers.values()) {
+                futures.add(commands.zadd(leasesKeyOf(member), xx, deadline, member));
+            }
+            for (RedisFuture<Long> future : futures) {
+                await(future);
+            }
+        }
+        
+        private void reap() {
+            long count = moveDue(leasesKeys, System.currentTimeMillis(), REAP_BATCH_SIZE)[0];
+            if (count > 0) {
+                log.warn("回收 {} 个出租期限已过的任务", count);
+            }
         }
+    }
+    
+    /**
+     * 将到期的延期任务放回队列；每个节点都有该线程，脚本保证同一任务只会被放回一次
+     * 
+     * <p>挂起至最早的延期任务到期，但不超过最长挂起时间，以便发现其他节点新增的延期任务
+     * 
+     * @since 2026.10.18
+     */
+    private class DeferralMoverThread extends MonitorThread {
+        
+        /**
+         * @param millis 最长挂起时间
+         */
+        public DeferralMoverThread(long millis) {
+            super("RedisDeferralMoverThread", millis);
+        }
+        
+        @Override
+        public void run0() {
+            while (!retire) {
+                long parkMillis = sleepMillis;
+                try {
+                    long now = System.currentTimeMillis();
+                    long[] result = moveDue(deferralsKeys, now, DEFERRAL_MOVE_BATCH_SIZE);
+                    if (result[0] >= DEFERRAL_MOVE_BATCH_SIZE) {
+                        // 可能还有到期的任务
+                        continue;
+                    }
+                    if (result[1] >= 0) {
+                        parkMillis = Math.max(1, Math.min(parkMillis, result[1] - now));
+                    }
+                } catch (RuntimeException e) {
+                    if (retire) {
+                        return;
+                    }
+                    // Redis暂时不可用时，等待下次执行
+                    log.error("放回到期的延期任务失败", e);
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(parkMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (retire) {
+                        return;
+                    }
+                    throw new WrapperException(e);
+                }
+            }
+        }
+    }
+    
+    private Task toTask(TaskRecord record) {
+        TaskFactory taskFactory = controller.getTaskFactory();
+        Task task = taskFactory.build(record.getTaskDefName(), record.getUri(), record.getRequestEntityStr());
+        // ??
+        task.setController(controller);
+        TaskDef taskDef = controller.getJob().getTaskDef(task.getTaskDefName());
+        task.setTaskDef(taskDef);
+        task.setPriority(record.getPriority());
+        task.setAttempts(record.getAttempts());
+        task.setArg(record.getArg());
+        task.setRecorded(true);// 放入队列前已检查过记录
+        return task;
+    }
+    
+    @Override
+    public Task[] cloneLeased() {
+        return leaseds.toArray();
+    }
 
-        return result;
+    @Override
+    public Task[] pollExpiredLeased(long now) {
+        return leaseds.pollExpired(now);
     }
 
     @Override
     public boolean remove(Task ctx) {
-        return leaseds.remove(ctx);
+        acknowledge(ctx);
+        return leaseds.release(ctx);
     }
 
     @Override
@@ -265,13 +889,12 @@ public class RedisMQCrawlerTaskPool implements TaskPool {
 
     @Override
     public int workableSize() {
-        // TODO Auto-generated method stub
-        return 0;
+        return availableSize() + deferralSize();
     }
 
     @Override
     public int availableSize() {
-        int result = 0;
+        int result = prefetch.size();
         for (String redisKey : redisKeys) {
             try {
                 result += RedisUtils.getAsyncCommands(redisURI).llen(redisKey).get();
@@ -285,15 +908,23 @@ public class RedisMQCrawlerTaskPool implements TaskPool {
 
     @Override
     public int deferralSize() {
-        // TODO Auto-generated method stub
-        return 0;
+        RedisAsyncCommands<String, byte[]> commands = RedisUtils.getAsyncBytesCommands(redisURI);
+        List<RedisFuture<Long>> futures = new ArrayList<>();
+        for (String key : deferralsKeys) {
+            futures.add(commands.zcard(key));
+        }
+        int result = 0;
+        for (RedisFuture<Long> future : futures) {
+            result += await(future).intValue();
+        }
+        return result;
     }
 
     @Override
     public boolean isEmpty() {
 //        return false;
         
-        return (availableSize() + getLeasedSize()) == 0;
+        return getLeasedSize() == 0 && workableSize() == 0;
     }
 
     @Override
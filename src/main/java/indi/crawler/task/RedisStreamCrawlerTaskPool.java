@@ -0,0 +1,735 @@
+package indi.crawler.task;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import indi.crawler.codec.TaskCodec;
+import indi.crawler.codec.TaskRecord;
+import indi.crawler.codec.ValueCodec;
+import indi.crawler.filter.TaskFilter;
+import indi.crawler.monitor.Monitor.MonitorThread;
+import indi.crawler.recoder.RedisRecorder;
+import indi.crawler.task.def.TaskDef;
+import indi.crawler.util.RedisUtils;
+import indi.exception.WrapperException;
+import io.lettuce.core.Consumer;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XReadArgs;
+import io.lettuce.core.XReadArgs.StreamOffset;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于Redis Streams消费者组的爬虫任务池
+ *
+ * <p>每个消费者组的每个任务定义一个流，所有节点使用同一个消费者组，每个节点是其中一个消费者；流与延期有序集合的键都包含消费者组名，
+ * 因此每个流只有一个消费者组，共用同一个Redis的爬虫工程互不影响：
+ * <ul>
+ * <li>预取线程通过阻塞的XREADGROUP批量读取任务，放入本地的预取缓冲区
+ * <li>任务完成、延期或重新提供时XACK并XDEL，因此流的长度减去待确认数即为尚未分配的任务数
+ * <li>各节点定时重置本节点待确认任务的空闲时间（相当于续期），并将其他节点空闲过久的任务认领给自己（模拟XAUTOCLAIM）
+ * <li>延期任务存放于以唤醒时间为分数的有序集合，到期后由Lua脚本批量写回对应的流
+ * </ul>
+ *
+ * <p>流之间的优先级只在读取时体现：预取缓冲区按任务的优先级排序
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+@Slf4j
+public class RedisStreamCrawlerTaskPool extends BasicTaskPool {
+    private static final String KEY_PREFIX = "TASK-STREAM-";
+    /** 本JVM中创建的任务池的序号，用于区分同一进程中的消费者 */
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+    /** 流中存放任务的字段 */
+    private static final String FIELD = "task";
+    /** 待确认的任务空闲超过该时间后，可被其他节点认领 */
+    private static final long CLAIM_IDLE_MILLIS = 2 * 60 * 1000L;
+    /** 续期及认领的间隔，需明显小于认领的空闲时间 */
+    private static final long RENEW_MILLIS = 30 * 1000L;
+    /** 每个流每次最多检查的待确认任务数 */
+    private static final int CLAIM_BATCH_SIZE = 100;
+    /** XREADGROUP的最长阻塞时间 */
+    private static final long READ_BLOCK_MILLIS = 1000;
+    private static final int DEFERRAL_MOVE_BATCH_SIZE = 500;
+    private static final long DEFERRAL_MOVER_MAX_PARK_MILLIS = 1000;
+
+    /** 创建消费者组，已存在时忽略 */
+    private static final String CREATE_GROUP_SCRIPT = "redis.pcall('XGROUP', 'CREATE', KEYS[1], ARGV[1], '0', 'MKSTREAM') "
+            + "return 1";
+
+    /**
+     * 重置本节点待确认任务的空闲时间：先通过XPENDING确认条目仍由本消费者持有，只对这些条目执行XCLAIM；
+     * 已被其他节点认领或已删除的条目不受影响，并返回这些条目的标识
+     *
+     * <p>ARGV：消费者组、消费者、条目标识...
+     */
+    private static final String RENEW_SCRIPT = "local args = {'XCLAIM', KEYS[1], ARGV[1], ARGV[2], '0'} "
+            + "local lost = {} "
+            + "for i = 3, #ARGV do "
+            + "  local p = redis.call('XPENDING', KEYS[1], ARGV[1], ARGV[i], ARGV[i], 1, ARGV[2]) "
+            + "  if #p > 0 then args[#args + 1] = ARGV[i] else lost[#lost + 1] = ARGV[i] end "
+            + "end "
+            + "if #args > 5 then "
+            + "  args[#args + 1] = 'JUSTID' "
+            + "  redis.call(unpack(args)) "
+            + "end "
+            + "return lost";
+
+    /**
+     * 认领空闲过久的待确认任务，相当于Redis 6.2的XAUTOCLAIM；只检查最早的CLAIM_BATCH_SIZE个待确认任务
+     */
+    private static final String CLAIM_SCRIPT = "local pending = redis.call('XPENDING', KEYS[1], ARGV[1], '-', '+', tonumber(ARGV[4])) "
+            + "local args = {'XCLAIM', KEYS[1], ARGV[1], ARGV[2], ARGV[3]} "
+            + "for _, p in ipairs(pending) do "
+            + "  if p[2] ~= ARGV[2] and tonumber(p[3]) >= tonumber(ARGV[3]) then args[#args + 1] = p[1] end "
+            + "end "
+            + "if #args == 5 then return {} end "
+            + "return redis.call(unpack(args))";
+
+    /** 所有流的长度之和与待确认数之和 */
+    private static final String STATS_SCRIPT = "local length, pending = 0, 0 "
+            + "for _, key in ipairs(KEYS) do "
+            + "  length = length + redis.call('XLEN', key) "
+            + "  local summary = redis.pcall('XPENDING', key, ARGV[1]) "
+            + "  if type(summary) == 'table' and summary[1] then pending = pending + summary[1] end "
+            + "end "
+            + "return {length, pending}";
+
+    /**
+     * 将到期的延期任务写回对应的流；成员为 流的键 + \n + 标识 + \n + 任务
+     *
+     * <p>返回 {移动的数量, 剩余成员中最小的分数（没有则为-1）}
+     */
+    private static final String MOVE_DUE_SCRIPT = "local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2])) "
+            + "for _, member in ipairs(due) do "
+            + "  local first = string.find(member, '\\n', 1, true) "
+            + "  local second = string.find(member, '\\n', first + 1, true) "
+            + "  redis.call('XADD', string.sub(member, 1, first - 1), '*', '" + FIELD + "', string.sub(member, second + 1)) "
+            + "  redis.call('ZREM', KEYS[1], member) "
+            + "end "
+            + "local head = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES') "
+            + "local nextScore = -1 "
+            + "if #head > 0 then nextScore = tonumber(head[2]) end "
+            + "return {#due, nextScore}";
+
+    private CrawlerController controller;
+    private String redisURI;
+    private String group;
+    /** 本节点的消费者名 */
+    private String consumer;
+    /** 延期有序集合的键 */
+    private String deferralsKey;
+    private ValueCodec<TaskRecord> taskCodec = TaskCodec.DEFAULT;
+
+    /** 已注册的任务定义 */
+    private Set<String> taskDefNames;
+    /** 流的键，按任务定义优先级从大到小排列 */
+    private volatile String[] streamKeys;
+
+    private LeaseTable leaseds;
+    /** 本节点读取的任务 -> 流中的条目 */
+    private Map<Task, StreamEntry> entries;
+    /** 本节点读取的条目，用于认领时去重 */
+    private Set<StreamEntry> ownedEntries;
+    private AtomicLong memberSequence;
+
+    private PriorityBlockingQueue<Task> prefetch;
+    private int prefetchCapacity;
+
+    private void init() {
+        // 同一进程中可能有多个爬虫工程，因此消费者名包含消费者组名及任务池的序号
+        consumer = ManagementFactory.getRuntimeMXBean().getName() + ":" + group + ":" + INSTANCES.incrementAndGet();
+        deferralsKey = KEY_PREFIX + group + "-DEFERRALS";
+        taskDefNames = ConcurrentHashMap.newKeySet();
+        streamKeys = new String[0];
+        leaseds = new LeaseTable();
+        entries = new ConcurrentHashMap<>();
+        ownedEntries = ConcurrentHashMap.newKeySet();
+        memberSequence = new AtomicLong();
+        prefetchCapacity = Math.max(2, controller.getJob().getThreadCount() * 2);
+        prefetch = new PriorityBlockingQueue<>(prefetchCapacity);
+        // 默认的记录器按工程名保存记录，未设置工程名时使用消费者组名
+        String name = Optional.ofNullable(controller.getJob().getName()).orElse(group);
+        recorder = Optional.ofNullable(controller.getJob().getRecorder()).orElseGet(() -> new RedisRecorder(redisURI, name));
+        // 注册所有任务定义，以便读取其他节点提供的任务
+        for (TaskDef taskDef : controller.getJob().getTaskDefs()) {
+            registerTaskDef(taskDef);
+        }
+
+        new ReadThread().startDeamon(controller);
+        new ClaimThread().startDeamon(controller);
+        new DeferralMoverThread().startDeamon(controller);
+    }
+
+    /**
+     * @param group 消费者组名，同一个爬虫工程的所有节点使用同一个组
+     */
+    public RedisStreamCrawlerTaskPool(String redisURI, String group, CrawlerController controller) {
+        log.info("使用Redis Streams爬虫任务池，消费者组：{}", group);
+        this.redisURI = redisURI;
+        this.group = group;
+        this.controller = controller;
+        init();
+    }
+
+    /**
+     * 若没有处理过该任务定义，则创建其流与消费者组，并按任务定义优先级重新排序
+     *
+     * @return 任务定义对应的流的键
+     */
+    private String registerTaskDef(TaskDef taskDef) {
+        String key = getStreamKey(taskDef);
+        if (!taskDefNames.contains(taskDef.getName())) {
+            synchronized (this) {
+                if (!taskDefNames.contains(taskDef.getName())) {
+                    await(RedisUtils.getAsyncBytesCommands(redisURI).<Long>eval(CREATE_GROUP_SCRIPT,
+                            ScriptOutputType.INTEGER, new String[] { key }, toBytes(group)));
+                    List<TaskDef> registered = new ArrayList<>();
+                    for (String name : taskDefNames) {
+                        registered.add(controller.getJob().getTaskDef(name));
+                    }
+                    registered.add(taskDef);
+                    registered.sort((c1, c2) -> c2.getPriority() - c1.getPriority());
+                    String[] keys = new String[registered.size()];
+                    for (int i = 0; i < keys.length; i++) {
+                        keys[i] = getStreamKey(registered.get(i));
+                    }
+                    streamKeys = keys;
+                    taskDefNames.add(taskDef.getName());
+                }
+            }
+        }
+        return key;
+    }
+
+    private String getStreamKey(TaskDef taskDef) {
+        return new StringBuilder(KEY_PREFIX).append(group).append("-(").append(taskDef.getPriority()).append(")").append("-")
+                .append(taskDef.getName()).toString();
+    }
+
+    @Override
+    boolean offer0(Task task) {
+        boolean unrecorded = !task.isRecorded();
+        if (isDuplicate(task)) {
+            return false;
+        }
+        String key = registerTaskDef(task.getTaskDef());
+        leaseds.release(task);
+        RedisFuture<String> future = RedisUtils.getAsyncBytesCommands(redisURI).xadd(key,
+                Collections.singletonMap(FIELD, encodeTask(task)));
+        if (unrecorded && task.isRecorded()) {
+            // 写入失败时撤销本次添加的记录；回调在lettuce的线程中执行，不能在其中等待Redis，因此异步执行
+            future.whenCompleteAsync((result, t) -> {
+                if (t != null) {
+                    log.error("提供任务失败，撤销其记录：{}", task.getUri(), t);
+                    undoRecord(task);
+                }
+            });
+        }
+        // 写回流后再确认，宕机时最多重复执行，不会丢失
+        acknowledge(task);
+        return true;
+    }
+
+    /**
+     * 一次往返检查所有任务的记录，再一次性发出所有XADD，并等待所有命令完成
+     */
+    @Override
+    List<Task> offerAll0(Collection<Task> tasks) {
+        Set<Task> unrecorded = unrecorded(tasks);
+        List<Task> accepted = filterDuplicates(tasks);
+        RedisAsyncCommands<String, byte[]> commands = RedisUtils.getAsyncBytesCommands(redisURI);
+        List<RedisFuture<String>> futures = new ArrayList<>(accepted.size());
+        for (Task task : accepted) {
+            String key = registerTaskDef(task.getTaskDef());
+            leaseds.release(task);
+            futures.add(commands.xadd(key, Collections.singletonMap(FIELD, encodeTask(task))));
+        }
+        RuntimeException failure = null;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                await(futures.get(i));
+            } catch (RuntimeException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                // 写入失败时撤销本次添加的记录，以便之后可以再次提供
+                if (unrecorded.contains(accepted.get(i))) {
+                    undoRecord(accepted.get(i));
+                }
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        for (Task task : accepted) {
+            acknowledge(task);
+        }
+        return accepted;
+    }
+
+    @Override
+    boolean deferral0(Task task, Long wakeUpTime) {
+        if (wakeUpTime == null || wakeUpTime <= System.currentTimeMillis()) {
+            return offer0(task);
+        }
+        String key = registerTaskDef(task.getTaskDef());
+        leaseds.release(task);
+        String token = consumer + ":" + memberSequence.incrementAndGet();
+        byte[] prefix = (key + "\n" + token + "\n").getBytes(StandardCharsets.UTF_8);
+        byte[] payload = encodeTask(task);
+        byte[] member = Arrays.copyOf(prefix, prefix.length + payload.length);
+        System.arraycopy(payload, 0, member, prefix.length, payload.length);
+        RedisUtils.getAsyncBytesCommands(redisURI).zadd(deferralsKey, wakeUpTime.doubleValue(), member);
+        acknowledge(task);
+        return true;
+    }
+
+    @Override
+    Task poll0() {
+        Task task = prefetch.poll();
+        if (task != null) {
+            leaseds.lease(task, System.currentTimeMillis());
+        }
+        return task;
+    }
+
+    @Override
+    Task poll0(long timeout, TimeUnit unit) throws InterruptedException {
+        Task task = prefetch.poll(timeout, unit);
+        if (task != null) {
+            leaseds.lease(task, System.currentTimeMillis());
+        }
+        return task;
+    }
+
+    @Override
+    List<Task> pollBatch0(int max) {
+        List<Task> tasks = new ArrayList<>(Math.min(Math.max(max, 0), prefetchCapacity));
+        prefetch.drainTo(tasks, Math.max(max, 0));
+        long now = System.currentTimeMillis();
+        for (Task task : tasks) {
+            leaseds.lease(task, now);
+        }
+        return tasks;
+    }
+
+    /**
+     * 确认任务已离开本节点，XACK并XDEL其条目；不等待命令完成
+     */
+    private void acknowledge(Task task) {
+        StreamEntry entry = entries.remove(task);
+        if (entry != null) {
+            ownedEntries.remove(entry);
+            RedisAsyncCommands<String, byte[]> commands = RedisUtils.getAsyncBytesCommands(redisURI);
+            commands.xack(entry.key, group, entry.id);
+            commands.xdel(entry.key, entry.id);
+        }
+    }
+
+    private byte[] encodeTask(Task task) {
+        return taskCodec.encode(TaskRecord.of(task));
+    }
+
+    /**
+     * 将读取或认领的条目转换为任务，并记录其条目
+     *
+     * @return 条目已被删除或已由本节点持有时返回null
+     */
+    private Task toTask(String key, String id, byte[] payload) {
+        StreamEntry entry = new StreamEntry(key, id);
+        if (payload == null || !ownedEntries.add(entry)) {
+            return null;
+        }
+        TaskRecord record = taskCodec.decode(payload);
+        Task task = controller.getTaskFactory().build(record.getTaskDefName(), record.getUri(),
+                record.getRequestEntityStr());
+        task.setController(controller);
+        task.setTaskDef(controller.getJob().getTaskDef(task.getTaskDefName()));
+        task.setPriority(record.getPriority());
+        task.setAttempts(record.getAttempts());
+        task.setArg(record.getArg());
+        task.setRecorded(true);// 写入流前已检查过记录
+        entries.put(task, entry);
+        return task;
+    }
+
+    private void addPrefetched(List<Task> tasks) {
+        if (!tasks.isEmpty()) {
+            prefetch.addAll(tasks);
+            signalAvailable(tasks.size());
+        }
+    }
+
+    @Override
+    public String getMessage() {
+        long[] stats = stats();
+        return new StringBuilder("streams-").append(Arrays.toString(streamKeys)).append(" lag-[")
+                .append(stats[0] - stats[1]).append("] pending-[").append(stats[1]).append("] prefetched-[")
+                .append(prefetch.size()).append("] leaseds-[").append(leaseds.size()).append("]").toString();
+    }
+
+    /**
+     * @return {所有流的长度之和, 待确认数之和}
+     */
+    private long[] stats() {
+        String[] keys = streamKeys;
+        if (keys.length == 0) {
+            return new long[2];
+        }
+        List<Object> result = await(RedisUtils.getAsyncBytesCommands(redisURI)
+                .<List<Object>>eval(STATS_SCRIPT, ScriptOutputType.MULTI, keys, toBytes(group)));
+        return new long[] { ((Number) result.get(0)).longValue(), ((Number) result.get(1)).longValue() };
+    }
+
+    @Override
+    public Task[] cloneLeased() {
+        return leaseds.toArray();
+    }
+
+    @Override
+    public Task[] pollExpiredLeased(long now) {
+        return leaseds.pollExpired(now);
+    }
+
+    @Override
+    public boolean remove(Task ctx) {
+        acknowledge(ctx);
+        return leaseds.release(ctx);
+    }
+
+    @Override
+    public int getLeasedSize() {
+        return leaseds.size();
+    }
+
+    @Override
+    public int workableSize() {
+        return availableSize() + deferralSize();
+    }
+
+    /**
+     * 尚未分配给任何节点的任务数与本节点预取的任务数之和；其他节点预取的任务不计入
+     */
+    @Override
+    public int availableSize() {
+        long[] stats = stats();
+        return (int) (stats[0] - stats[1]) + prefetch.size();
+    }
+
+    @Override
+    public int deferralSize() {
+        return await(RedisUtils.getAsyncBytesCommands(redisURI).zcard(deferralsKey)).intValue();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getLeasedSize() == 0 && workableSize() == 0;
+    }
+
+    @Override
+    public boolean addFilter(TaskFilter filter) {
+        return false;
+    }
+
+    private static <T> T await(RedisFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WrapperException(e);
+        } catch (ExecutionException e) {
+            throw new WrapperException(e);
+        }
+    }
+
+    private static byte[] toBytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 流中的一个条目
+     */
+    private static final class StreamEntry {
+        private final String key;
+        private final String id;
+
+        private StreamEntry(String key, String id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof StreamEntry)) {
+                return false;
+            }
+            StreamEntry other = (StreamEntry) obj;
+            return key.equals(other.key) && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() * 31 + id.hashCode();
+        }
+    }
+
+    /**
+     * 预取缓冲区不足一半时，通过阻塞的XREADGROUP批量读取新任务；阻塞命令使用单独的连接池
+     *
+     * <p>结束时将缓冲区中的任务写回流
+     */
+    private class ReadThread extends MonitorThread {
+        /** 读取循环结束时计数，用于结束时等待正在执行的读取 */
+        private final CountDownLatch stopped = new CountDownLatch(1);
+
+        public ReadThread() {
+            super("RedisStreamReadThread", READ_BLOCK_MILLIS);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run0() {
+            while (!retire) {
+                String[] keys = streamKeys;
+                int free = prefetchCapacity - prefetch.size();
+                if (keys.length == 0 || free < prefetchCapacity / 2) {
+                    park();
+                    continue;
+                }
+                StreamOffset<String>[] offsets = new StreamOffset[keys.length];
+                for (int i = 0; i < keys.length; i++) {
+                    offsets[i] = StreamOffset.lastConsumed(keys[i]);
+                }
+                // COUNT作用于每个流，按流的数量均分
+                XReadArgs args = XReadArgs.Builder.block(READ_BLOCK_MILLIS).count(Math.max(1, free / keys.length));
+                List<StreamMessage<String, byte[]>> messages;
+                try {
+                    messages = RedisUtils.callBlocking(redisURI,
+                            commands -> commands.xreadgroup(Consumer.from(group, consumer), args, offsets));
+                } catch (RuntimeException e) {
+                    if (retire) {
+                        break;
+                    }
+                    // Redis暂时不可用时，等待后重试
+                    log.error("读取任务失败", e);
+                    park();
+                    continue;
+                }
+                List<Task> tasks = new ArrayList<>(messages.size());
+                for (StreamMessage<String, byte[]> message : messages) {
+                    Task task = toTask(message.getStream(), message.getId(), message.getBody().get(FIELD));
+                    if (task != null) {
+                        tasks.add(task);
+                    }
+                }
+                addPrefetched(tasks);
+            }
+            // 结束前可能刚读取了一批任务，再次写回
+            writeBack();
+            stopped.countDown();
+        }
+
+        private void park() {
+            try {
+                TimeUnit.MILLISECONDS.sleep(sleepMillis / 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!retire) {
+                    throw new WrapperException(e);
+                }
+            }
+        }
+
+        /**
+         * 等待读取循环结束（即正在执行的XREADGROUP返回）后再写回，以免其读取的任务在写回后才放入缓冲区；等待超时时由本线程结束前写回
+         */
+        @Override
+        public void retire() {
+            super.retire();
+            try {
+                stopped.await(READ_BLOCK_MILLIS * 3, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writeBack();
+        }
+
+        private void writeBack() {
+            List<Task> tasks = new ArrayList<>(prefetch.size());
+            prefetch.drainTo(tasks);
+            if (!tasks.isEmpty()) {
+                log.info("写回 {} 个预取的任务", tasks.size());
+                offerAll0(tasks);
+            }
+        }
+    }
+
+    /**
+     * 定时重置本节点待确认任务的空闲时间，并认领其他节点空闲过久的任务
+     *
+     * <p>空闲时间由Redis计算，不依赖节点间的时钟同步
+     */
+    private class ClaimThread extends MonitorThread {
+
+        public ClaimThread() {
+            super("RedisStreamClaimThread", RENEW_MILLIS);
+        }
+
+        @Override
+        public void run0() {
+            try {
+                renew();
+                claim();
+            } catch (RuntimeException e) {
+                // Redis暂时不可用时，等待下次执行
+                log.error("维护待确认任务失败", e);
+            }
+        }
+
+        private void renew() {
+            Map<String, List<byte[]>> grouped = new LinkedHashMap<>();
+            for (StreamEntry entry : ownedEntries) {
+                grouped.computeIfAbsent(entry.key, k -> new ArrayList<>(Arrays.asList(toBytes(group), toBytes(consumer))))
+                        .add(toBytes(entry.id));
+            }
+            RedisAsyncCommands<String, byte[]> commands = RedisUtils.getAsyncBytesCommands(redisURI);
+            Map<String, RedisFuture<List<Object>>> futures = new LinkedHashMap<>();
+            for (Entry<String, List<byte[]>> e : grouped.entrySet()) {
+                futures.put(e.getKey(), commands.<List<Object>>eval(RENEW_SCRIPT, ScriptOutputType.MULTI,
+                        new String[] { e.getKey() }, e.getValue().toArray(new byte[0][])));
+            }
+            for (Entry<String, RedisFuture<List<Object>>> e : futures.entrySet()) {
+                for (Object id : await(e.getValue())) {
+                    onLost(new StreamEntry(e.getKey(), new String((byte[]) id, StandardCharsets.UTF_8)));
+                }
+            }
+        }
+
+        /**
+         * 条目已被其他节点认领（本节点续期不及时）或已删除：不再续期；尚未执行的任务直接丢弃，以免两个节点重复执行
+         */
+        private void onLost(StreamEntry entry) {
+            if (!ownedEntries.remove(entry)) {
+                return;
+            }
+            for (Entry<Task, StreamEntry> e : entries.entrySet()) {
+                if (e.getValue().equals(entry)) {
+                    if (prefetch.remove(e.getKey())) {
+                        entries.remove(e.getKey(), entry);
+                        log.warn("条目已被其他节点认领，丢弃预取的任务：{}", e.getKey().getMessage());
+                    } else {
+                        log.warn("条目已被其他节点认领，任务可能被重复执行：{}", e.getKey().getMessage());
+                    }
+                    break;
+                }
+            }
+        }
+
+        private void claim() {
+            RedisAsyncCommands<String, byte[]> commands = RedisUtils.getAsyncBytesCommands(redisURI);
+            List<Task> tasks = new ArrayList<>();
+            for (String key : streamKeys) {
+                List<Object> claimed = await(commands.<List<Object>>eval(CLAIM_SCRIPT, ScriptOutputType.MULTI,
+                        new String[] { key }, toBytes(group), toBytes(consumer), toBytes(CLAIM_IDLE_MILLIS),
+                        toBytes(CLAIM_BATCH_SIZE)));
+                for (Object obj : claimed) {
+                    // 条目形如 [id, [field, value, ...]]；已删除的条目为null
+                    if (!(obj instanceof List)) {
+                        continue;
+                    }
+                    List<?> message = (List<?>) obj;
+                    String id = new String((byte[]) message.get(0), StandardCharsets.UTF_8);
+                    Task task = toTask(key, id, fieldOf(message.size() > 1 ? (List<?>) message.get(1) : null));
+                    if (task != null) {
+                        tasks.add(task);
+                    }
+                }
+            }
+            if (!tasks.isEmpty()) {
+                log.warn("认领 {} 个空闲过久的任务", tasks.size());
+                addPrefetched(tasks);
+            }
+        }
+
+        private byte[] fieldOf(List<?> fields) {
+            if (fields == null) {
+                return null;
+            }
+            for (int i = 0; i + 1 < fields.size(); i += 2) {
+                if (FIELD.equals(new String((byte[]) fields.get(i), StandardCharsets.UTF_8))) {
+                    return (byte[]) fields.get(i + 1);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 将到期的延期任务写回流；挂起至最早的延期任务到期，但不超过最长挂起时间
+     */
+    private class DeferralMoverThread extends MonitorThread {
+
+        public DeferralMoverThread() {
+            super("RedisStreamDeferralMoverThread", DEFERRAL_MOVER_MAX_PARK_MILLIS);
+        }
+
+        @Override
+        public void run0() {
+            while (!retire) {
+                long parkMillis = sleepMillis;
+                try {
+                    long now = System.currentTimeMillis();
+                    List<Object> result = await(RedisUtils.getAsyncBytesCommands(redisURI).<List<Object>>eval(
+                            MOVE_DUE_SCRIPT, ScriptOutputType.MULTI, new String[] { deferralsKey }, toBytes(now),
+                            toBytes(DEFERRAL_MOVE_BATCH_SIZE)));
+                    long moved = ((Number) result.get(0)).longValue();
+                    long next = ((Number) result.get(1)).longValue();
+                    if (moved >= DEFERRAL_MOVE_BATCH_SIZE) {
+                        continue;
+                    }
+                    if (next >= 0) {
+                        parkMillis = Math.max(1, Math.min(parkMillis, next - now));
+                    }
+                } catch (RuntimeException e) {
+                    if (retire) {
+                        return;
+                    }
+                    log.error("写回到期的延期任务失败", e);
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(parkMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (retire) {
+                        return;
+                    }
+                    throw new WrapperException(e);
+                }
+            }
+        }
+    }
+}
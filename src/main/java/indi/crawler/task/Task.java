@@ -6,6 +6,7 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -60,6 +61,8 @@ public class Task implements Cleanupable, Comparable<Task>, Message, Logable, Se
     private transient CrawlerController controller;
 
     private URI uri;
+    /** 规范化的地址，创建任务时由 {@link UriCanonicalizer} 计算，用于指纹、缓存与去重；实际请求仍使用 {@link #uri} */
+    private transient String canonicalUri;
     private transient CloseableHttpClient client;
     private CrawlerStatus status = CrawlerStatus.CREATED;
     private transient CrawlerThread thread;
@@ -98,6 +101,10 @@ public class Task implements Cleanupable, Comparable<Task>, Message, Logable, Se
     // 由本Context产生的子任务
     private transient List<Task> childs;
     private String identityKey;// 身份编码
+    /** 是否已通过任务池的记录检查；再次放入任务池（如重试、延期后恢复）时不再检查，以免被判断为重复 */
+    private transient boolean recorded;
+    /** 任务的指纹，首次获取时计算，见 {@link #getFingerprint()} */
+    private transient volatile String fingerprint;
     private Serializable arg;// 执行时传递用参数（TODO:最好改用Map）
     /** TODO:有没有更好的实现单例的方式？ */
     private final ReentrantLock statusLock = new ReentrantLock();
@@ -115,6 +122,45 @@ public class Task implements Cleanupable, Comparable<Task>, Message, Logable, Se
         return (RedirectLocations) httpContext.getAttribute(HttpClientContext.REDIRECT_LOCATIONS);
     }
 
+    /**
+     * 获取任务的指纹，首次获取时计算并缓存；缓存、记录器、去重等共用该指纹，不必各自计算
+     * 
+     * @see Fingerprinter
+     * @since 2026.10.18
+     */
+    public String getFingerprint() {
+        String result = fingerprint;
+        if (result == null) {
+            // 计算的结果是确定的，并发时重复计算也无妨
+            result = Fingerprinter.fingerprint(this);
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * 获取小写的主机名，用作按主机的访问礼貌、限速、熔断等的键，避免同一主机因大小写不同而被分开计算
+     * 
+     * @return 主机名；没有地址或主机时返回null
+     * @since 2026.10.18
+     */
+    public String getHost() {
+        if (uri == null || uri.getHost() == null) {
+            return null;
+        }
+        return uri.getHost().toLowerCase(Locale.ROOT);// 已是小写时返回原字符串，不会创建新对象
+    }
+
+    public void setCanonicalUri(String canonicalUri) {
+        this.canonicalUri = canonicalUri;
+        this.fingerprint = null;
+    }
+
+    public void setIdentityKey(String identityKey) {
+        this.identityKey = identityKey;
+        this.fingerprint = null;// 指纹由唯一键计算，需重新计算
+    }
+
     @Override
     public void cleanup() {
         BeanUtils.cleanup(this);
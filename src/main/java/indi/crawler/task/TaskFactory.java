@@ -132,6 +132,8 @@ public class TaskFactory {
         task.setUri(uri);
         task.setTaskDef(taskDef);
         task.setResponseEntity(new ResponseEntity(task, taskDef.getResultType()));
+        // 规范化地址，只计算一次，之后的指纹、缓存、去重都使用该结果
+        task.setCanonicalUri(taskDef.getUriCanonicalizer().canonicalize(uri));
         
         // gen and set id key
         Optional.ofNullable(taskDef.getIdKeyGenerator())
@@ -1,5 +1,9 @@
 package indi.crawler.task;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import indi.crawler.filter.TaskFilter;
 import indi.obj.Message;
 
@@ -14,6 +18,15 @@ public interface TaskPool extends Message {
      */
     boolean offer(Task task);
     
+    /**
+     * 批量新增爬虫任务，用于一次性提交子任务；与逐个offer相比，只需唤醒一次等待任务的线程，Redis实现只需一次往返
+     * 
+     * @param tasks
+     * @return 成功新增的任务，未包含在内的任务被拒绝（如重复任务）
+     * @since 2026.10.18
+     */
+    List<Task> offerAll(Collection<Task> tasks);
+    
     /**
      * 延期执行爬虫任务，只允许添加状态为延期的任务 
      * 
@@ -26,12 +39,51 @@ public interface TaskPool extends Message {
     
     Task poll();
     
+    /**
+     * 取出爬虫任务；若暂时没有可执行的任务，则挂起至有任务被提供（包括延期任务到期）或超时
+     * 
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 爬虫任务，超时返回null
+     * @throws InterruptedException 等待时被中断
+     * @since 2026.10.18
+     */
+    Task poll(long timeout, TimeUnit unit) throws InterruptedException;
+    
+    /**
+     * 批量取出爬虫任务，不阻塞
+     * 
+     * @param max 最多取出的任务数
+     * @return 取出的任务，按优先级排列；没有任务时返回空集合
+     * @since 2026.10.18
+     */
+    List<Task> pollBatch(int max);
+    
+    /**
+     * 暂停主机：在指定时间前，取出的该主机的任务将被直接延期至该时间，而不会被执行
+     * 
+     * @param host 主机名
+     * @param until 恢复的时间，millis
+     * @since 2026.10.18
+     */
+    void pauseHost(String host, long until);
+    
     /**
      * 返回当前等待队列数组，对该数组的操作是安全的，但需要注意内存开销！！
      * 
      */
     Task[] cloneLeased();
     
+    /**
+     * 取出已超过出租期限（出租时间 + 最大出租时间）的出租中的任务，只涉及到期的任务，不需要复制整个出租集合
+     * 
+     * <p>取出的任务仍处于出租中；若未被移除，将在下一个检查周期后再次被取出
+     * 
+     * @param now 当前时间，millis
+     * @since 2026.10.18
+     */
+    Task[] pollExpiredLeased(long now);
+    
     /**
      * 移除爬虫
      */
@@ -0,0 +1,350 @@
+package indi.crawler.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分层时间轮，用于按到期时间管理大量元素。
+ *
+ * <p>新增、移除元素的时间复杂度均为O(1)（均摊）；只有非空的时间格才会进入按到期时间排序的小顶堆，因此堆的大小只与时间轮的格数有关，
+ * 与元素数量无关。取出到期元素时，线程将精确地挂起至最早的时间格到期，而不是轮询。
+ *
+ * <p>超出当前层范围的元素放入上一层时间轮（懒加载），随着时间推进逐层下降，实现思路参考Kafka的Timing Wheel。
+ *
+ * <p>元素按引用（而不是equals）区分，同一元素同时最多只能存在一次，重复添加将覆盖此前的到期时间。
+ *
+ * <p>所有操作都在同一把锁内完成，临界区极短
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ * @param <E> 元素类型
+ */
+public class TimingWheel<E> {
+    /** 默认最底层的时间格跨度，millis */
+    private static final long DEFAULT_TICK_MILLIS = 1;
+    /** 默认每层的时间格数 */
+    private static final int DEFAULT_WHEEL_SIZE = 64;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** 最早到期的时间格发生变化时发出信号 */
+    private final Condition expirable = lock.newCondition();
+    /** 非空时间格组成的小顶堆，按时间格到期时间排序 */
+    private final PriorityQueue<Bucket<E>> bucketHeap = new PriorityQueue<>();
+    /** 元素 -> 节点，用于O(1)移除 */
+    private final Map<E, Node<E>> index = new IdentityHashMap<>();
+    /** 添加时就已到期的元素 */
+    private final Bucket<E> ready = new Bucket<>();
+    private final Level<E> root;
+
+    public TimingWheel() {
+        this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     *
+     * @param tickMillis 最底层时间格的跨度，决定了唤醒的精度
+     * @param wheelSize 每层的时间格数
+     */
+    public TimingWheel(long tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis与wheelSize必须大于0");
+        }
+        root = new Level<>(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * 添加元素；若元素已存在，则先移除再添加
+     *
+     * @param e
+     * @param deadline 到期时间，millis
+     */
+    public void add(E e, long deadline) {
+        lock.lock();
+        try {
+            remove0(e);
+            Node<E> node = new Node<>(e, deadline);
+            index.put(e, node);
+            place(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 移除元素
+     *
+     * @return 元素是否存在
+     */
+    public boolean remove(E e) {
+        lock.lock();
+        try {
+            return remove0(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean remove0(E e) {
+        Node<E> node = index.remove(e);
+        if (node == null) {
+            return false;
+        }
+        node.bucket.nodes.remove(node);
+        return true;
+    }
+
+    public boolean contains(E e) {
+        lock.lock();
+        try {
+            return index.containsKey(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 返回当前所有元素的快照
+     */
+    public List<E> snapshot() {
+        lock.lock();
+        try {
+            return new ArrayList<>(index.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 最近一个时间格的到期时间，用于输出日志；没有元素时返回-1
+     *
+     * <p>堆中可能残留已被清空的时间格，因此该值只是估算
+     */
+    public long nextExpiration() {
+        lock.lock();
+        try {
+            if (!ready.nodes.isEmpty()) {
+                return root.currentTime;
+            }
+            Bucket<E> head = bucketHeap.peek();
+            return index.isEmpty() || head == null ? -1 : head.expiration;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 立即取出所有已到期的元素（不阻塞）
+     *
+     * @param now 当前时间，millis
+     * @return 已到期的元素，已从时间轮中移除
+     */
+    public List<E> pollExpired(long now) {
+        lock.lock();
+        try {
+            return pollExpired0(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出所有已到期的元素；若没有，则挂起直至最早的时间格到期，或直至超时
+     *
+     * @param maxWaitMillis 最长挂起时间
+     * @return 已到期的元素，超时时返回空集合
+     * @throws InterruptedException
+     */
+    public List<E> awaitExpired(long maxWaitMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = System.currentTimeMillis();
+                List<E> expired = pollExpired0(now);
+                if (!expired.isEmpty() || remaining <= 0) {
+                    return expired;
+                }
+                long waitNanos = remaining;
+                Bucket<E> head = bucketHeap.peek();
+                if (head != null) {
+                    waitNanos = Math.min(waitNanos, TimeUnit.MILLISECONDS.toNanos(head.expiration - now));
+                }
+                long slept = Math.max(waitNanos, 0);
+                remaining -= slept - expirable.awaitNanos(slept);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<E> pollExpired0(long now) {
+        List<E> result = null;
+        if (!ready.nodes.isEmpty()) {
+            result = new ArrayList<>(ready.nodes.size());
+            drain(ready, result);
+        }
+        Bucket<E> bucket;
+        while ((bucket = bucketHeap.peek()) != null && bucket.expiration <= now) {
+            bucketHeap.poll();
+            root.advanceClock(bucket.expiration);
+            // 将时间格中的元素重新放置：已到期的进入ready，未到期的下降至更低的层
+            List<Node<E>> nodes = new ArrayList<>(bucket.nodes);
+            bucket.reset();
+            for (Node<E> node : nodes) {
+                place(node);
+            }
+        }
+        if (!ready.nodes.isEmpty()) {
+            if (result == null) {
+                result = new ArrayList<>(ready.nodes.size());
+            }
+            drain(ready, result);
+        }
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    private void drain(Bucket<E> bucket, List<E> result) {
+        for (Node<E> node : bucket.nodes) {
+            index.remove(node.element);
+            result.add(node.element);
+        }
+        bucket.nodes.clear();
+    }
+
+    /**
+     * 将节点放入对应的时间格，必须在锁内执行
+     */
+    private void place(Node<E> node) {
+        Level<E> level = root;
+        while (true) {
+            if (node.deadline < level.currentTime + level.tickMillis) {
+                // 已到期
+                node.bucket = ready;
+                ready.nodes.add(node);
+                expirable.signal();
+                return;
+            }
+            if (node.deadline < level.currentTime + level.interval) {
+                long virtualId = node.deadline / level.tickMillis;
+                Bucket<E> bucket = level.buckets[(int) (virtualId % level.wheelSize)];
+                node.bucket = bucket;
+                bucket.nodes.add(node);
+                if (bucket.setExpiration(virtualId * level.tickMillis)) {
+                    // 时间格被复用，需要重新入堆
+                    bucketHeap.offer(bucket);
+                    if (bucketHeap.peek() == bucket) {
+                        expirable.signal();
+                    }
+                }
+                return;
+            }
+            level = level.overflow();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("TimingWheel[size=").append(size())
+                .append(", nextExpiration=").append(nextExpiration())
+                .append("]").toString();
+    }
+
+    private static final class Node<E> {
+        private final E element;
+        private final long deadline;
+        private Bucket<E> bucket;
+
+        private Node(E element, long deadline) {
+            this.element = element;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final class Bucket<E> implements Comparable<Bucket<E>> {
+        /** 按引用比较的Node，移除为O(1) */
+        private final LinkedHashSet<Node<E>> nodes = new LinkedHashSet<>();
+        private long expiration = -1;
+
+        /**
+         * @return 到期时间是否发生了变化
+         */
+        private boolean setExpiration(long expiration) {
+            if (this.expiration == expiration) {
+                return false;
+            }
+            this.expiration = expiration;
+            return true;
+        }
+
+        private void reset() {
+            nodes.clear();
+            expiration = -1;
+        }
+
+        @Override
+        public int compareTo(Bucket<E> o) {
+            return Long.compare(expiration, o.expiration);
+        }
+    }
+
+    private static final class Level<E> {
+        private final long tickMillis;
+        private final int wheelSize;
+        /** 本层覆盖的时间跨度 */
+        private final long interval;
+        private final Bucket<E>[] buckets;
+        /** 本层的当前时间，总是tickMillis的整数倍 */
+        private long currentTime;
+        /** 上一层，懒加载 */
+        private Level<E> overflow;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tickMillis, int wheelSize, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.interval = tickMillis * wheelSize;
+            this.currentTime = startMillis - (startMillis % tickMillis);
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+        }
+
+        private Level<E> overflow() {
+            if (overflow == null) {
+                overflow = new Level<>(interval, wheelSize, currentTime);
+            }
+            return overflow;
+        }
+
+        private void advanceClock(long timeMillis) {
+            if (timeMillis >= currentTime + tickMillis) {
+                currentTime = timeMillis - (timeMillis % tickMillis);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package indi.crawler.task;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 地址规范化：将指向同一资源的不同写法转换为同一个字符串，用于去重、缓存的键（任务指纹）以及按主机的访问礼貌
+ *
+ * <p>规则：
+ * <ul>
+ * <li>协议、主机转为小写，去掉默认端口（http 80，https 443）与片段（#之后的部分）
+ * <li>去掉路径中的“.”与“..”，空路径改为“/”
+ * <li>百分号编码：不需要编码的字符（字母、数字、-._~）解码，其余的编码统一为大写
+ * <li>去掉跟踪参数（如utm_*），按参数名排序查询参数（同名参数保持原有顺序）
+ * </ul>
+ *
+ * <p>只用于标识任务，不改变实际发送请求的地址。该类不可变，with方法返回新的对象
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+public class UriCanonicalizer implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** 默认去掉的跟踪参数 */
+    private static final List<String> DEFAULT_IGNORED_PARAMS = Arrays.asList("fbclid", "gclid", "msclkid", "yclid",
+            "spm", "_hsenc", "_hsmi", "mc_cid", "mc_eid");
+    private static final List<String> DEFAULT_IGNORED_PARAM_PREFIXES = Arrays.asList("utm_");
+
+    public static final UriCanonicalizer DEFAULT = new UriCanonicalizer(new HashSet<>(DEFAULT_IGNORED_PARAMS),
+            DEFAULT_IGNORED_PARAM_PREFIXES, true);
+
+    private final Set<String> ignoredParams;
+    private final List<String> ignoredParamPrefixes;
+    private final boolean sortQuery;
+
+    private UriCanonicalizer(Set<String> ignoredParams, List<String> ignoredParamPrefixes, boolean sortQuery) {
+        this.ignoredParams = Collections.unmodifiableSet(ignoredParams);
+        this.ignoredParamPrefixes = Collections.unmodifiableList(ignoredParamPrefixes);
+        this.sortQuery = sortQuery;
+    }
+
+    /**
+     * 额外去掉指定的查询参数（如会话编号、时间戳）
+     *
+     * @param names 参数名，不区分大小写
+     */
+    public UriCanonicalizer withIgnoredParams(String... names) {
+        Set<String> params = new HashSet<>(ignoredParams);
+        for (String name : names) {
+            params.add(name.toLowerCase(Locale.ROOT));
+        }
+        return new UriCanonicalizer(params, ignoredParamPrefixes, sortQuery);
+    }
+
+    /**
+     * 额外去掉以指定前缀开头的查询参数
+     *
+     * @param prefixes 参数名的前缀，不区分大小写
+     */
+    public UriCanonicalizer withIgnoredParamPrefixes(String... prefixes) {
+        List<String> list = new ArrayList<>(ignoredParamPrefixes);
+        for (String prefix : prefixes) {
+            list.add(prefix.toLowerCase(Locale.ROOT));
+        }
+        return new UriCanonicalizer(ignoredParams, list, sortQuery);
+    }
+
+    /**
+     * 不排序查询参数，用于参数顺序有意义的网站
+     */
+    public UriCanonicalizer withoutQuerySorting() {
+        return new UriCanonicalizer(ignoredParams, ignoredParamPrefixes, false);
+    }
+
+    /**
+     * 规范化地址
+     *
+     * @return 规范的地址；uri为null时返回null
+     */
+    public String canonicalize(URI uri) {
+        if (uri == null) {
+            return null;
+        }
+        if (uri.isOpaque()) {
+            return uri.getScheme().toLowerCase(Locale.ROOT) + ":" + uri.getRawSchemeSpecificPart();
+        }
+        String scheme = uri.getScheme() == null ? null : uri.getScheme().toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder();
+        if (scheme != null) {
+            sb.append(scheme).append(':');
+        }
+        String host = uri.getHost();
+        if (host != null) {
+            sb.append("//");
+            if (uri.getRawUserInfo() != null) {
+                sb.append(uri.getRawUserInfo()).append('@');
+            }
+            sb.append(host.toLowerCase(Locale.ROOT));
+            int port = uri.getPort();
+            if (port != -1 && !isDefaultPort(scheme, port)) {
+                sb.append(':').append(port);
+            }
+        } else if (uri.getRawAuthority() != null) {
+            sb.append("//").append(uri.getRawAuthority());
+        }
+        String path = normalizePath(uri.getRawPath());
+        if (path.isEmpty() && host != null) {
+            path = "/";
+        }
+        sb.append(path);
+        String query = canonicalizeQuery(uri.getRawQuery());
+        if (query != null) {
+            sb.append('?').append(query);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 先规范编码再去掉“.”与“..”，使编码过的点（%2E）也能被去掉
+     */
+    private static String normalizePath(String rawPath) {
+        if (rawPath == null || rawPath.isEmpty()) {
+            return "";
+        }
+        String path = normalizeEncoding(rawPath);
+        if (path.charAt(0) != '/' || path.indexOf('.') < 0) {
+            return path;
+        }
+        // 拼上协议与主机，以免以“//”开头的路径被解析为主机
+        return URI.create("http://h" + path).normalize().getRawPath();
+    }
+
+    private static boolean isDefaultPort(String scheme, int port) {
+        return ("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443);
+    }
+
+    /**
+     * 去掉需忽略的参数并排序；没有参数时返回null
+     */
+    private String canonicalizeQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return null;
+        }
+        List<String[]> params = new ArrayList<>();
+        for (String param : rawQuery.split("&")) {
+            if (param.isEmpty()) {
+                continue;
+            }
+            int eq = param.indexOf('=');
+            String name = normalizeEncoding(eq < 0 ? param : param.substring(0, eq));
+            if (isIgnored(name)) {
+                continue;
+            }
+            params.add(new String[] { name, normalizeEncoding(param) });
+        }
+        if (params.isEmpty()) {
+            return null;
+        }
+        if (sortQuery) {
+            // List.sort是稳定的，同名参数保持原有顺序
+            params.sort((a, b) -> a[0].compareTo(b[0]));
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String[] param : params) {
+            if (sb.length() > 0) {
+                sb.append('&');
+            }
+            sb.append(param[1]);
+        }
+        return sb.toString();
+    }
+
+    private boolean isIgnored(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (ignoredParams.contains(lower)) {
+            return true;
+        }
+        for (String prefix : ignoredParamPrefixes) {
+            if (lower.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalizeEncoding(String raw) {
+        if (raw.indexOf('%') < 0) {
+            return raw;
+        }
+        StringBuilder sb = new StringBuilder(raw.length());
+        appendNormalizedEncoding(sb, raw);
+        return sb.toString();
+    }
+
+    /**
+     * 解码不需要编码的字符，其余的编码统一为大写
+     */
+    private static void appendNormalizedEncoding(StringBuilder sb, String raw) {
+        int length = raw.length();
+        for (int i = 0; i < length; i++) {
+            char c = raw.charAt(i);
+            if (c == '%' && i + 2 < length) {
+                int high = Character.digit(raw.charAt(i + 1), 16);
+                int low = Character.digit(raw.charAt(i + 2), 16);
+                if (high >= 0 && low >= 0) {
+                    char decoded = (char) ((high << 4) | low);
+                    if (isUnreserved(decoded)) {
+                        sb.append(decoded);
+                    } else {
+                        sb.append('%').append(Character.toUpperCase(raw.charAt(i + 1)))
+                                .append(Character.toUpperCase(raw.charAt(i + 2)));
+                    }
+                    i += 2;
+                    continue;
+                }
+            }
+            sb.append(c);
+        }
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '.'
+                || c == '_' || c == '~';
+    }
+}
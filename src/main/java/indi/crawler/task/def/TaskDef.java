@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
@@ -25,12 +26,18 @@ import indi.crawler.bootstrap.CrawlerJob;
 import indi.crawler.cookies.CookieStore;
 import indi.crawler.exception.ExceptionHandler;
 import indi.crawler.exception.LogExceptionHandler;
+import indi.crawler.filter.BlockingWaitFilter;
+import indi.crawler.filter.GcraRateLimiter;
 import indi.crawler.processor.Processor;
+import indi.crawler.processor.http.AdaptiveRateProcessor;
+import indi.crawler.processor.http.BlobCacheProcessor;
 import indi.crawler.processor.http.CookieProcessor;
 import indi.crawler.processor.http.HttpLogProcessor;
+import indi.crawler.processor.http.RedisCacheOptions;
 import indi.crawler.processor.http.RedisCacheProcessor;
 import indi.crawler.result.ResultHandler;
 import indi.crawler.task.ResponseEntity.TYPE;
+import indi.crawler.task.UriCanonicalizer;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -82,6 +89,25 @@ public class TaskDef implements Comparable<TaskDef>, Serializable {
     private String redisCacheUri;
     /** 最大单次出租时间，默认5分钟 */
     private long maxLeasedTime = -1;
+    /** 注册至CrawlerJob时分配的稠密序号，任务池据此用数组定位任务队列；未注册时为-1 */
+    @Setter private int slot = -1;
+    /** 同一主机两次访问的最小间隔，millis；不大于0表示不限制 */
+    private long hostDelayMillis = -1;
+    /** 同一主机同时执行的最大任务数；不大于0表示不限制 */
+    private int hostMaxInFlight = -1;
+    /** 需要计入任务指纹的请求头，见 {@link indi.crawler.task.Fingerprinter} */
+    private List<String> fingerprintHeaders;
+    /** 地址规范化规则，用于任务指纹（缓存、去重的键），见 {@link UriCanonicalizer} */
+    private UriCanonicalizer uriCanonicalizer;
+    
+    /**
+     * 是否启用了按主机的访问礼貌
+     * 
+     * @since 2026.10.18
+     */
+    public boolean isHostPoliteness() {
+        return hostDelayMillis > 0 || hostMaxInFlight > 0;
+    }
     
     public enum HTTPMethodType {
         GET, POST, PUT, PATCH, DELETE;
@@ -104,6 +130,8 @@ public class TaskDef implements Comparable<TaskDef>, Serializable {
         headersLock = new ReentrantLock();
         requestHeaders = new HeaderGroup();
         crawlerExceptionHandler = new LinkedList<>();
+        fingerprintHeaders = new LinkedList<>();
+        uriCanonicalizer = UriCanonicalizer.DEFAULT;
         // init default HTTP headers
         requestHeaders.addHeader(new BasicHeader("accept",
                 "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3"));
@@ -202,6 +230,8 @@ public class TaskDef implements Comparable<TaskDef>, Serializable {
         private Integer requestTimeout = null;
         private Integer timeout = null;
         private CrawlerJob job;
+        /** 自适应速率的初始速率，在 {@link #build()} 时设置到限流器上；为null表示未启用 */
+        private Double adaptiveInitialRate = null;
 
         private Builder(String taskName, CrawlerJob job) {
             this.taskDef = new TaskDef(taskName);
@@ -265,6 +295,39 @@ public class TaskDef implements Comparable<TaskDef>, Serializable {
             return this;
         }
 
+        /**
+         * 指定需要计入任务指纹的请求头（如会影响响应内容的Cookie、Accept-Language），默认只计入请求方法、地址与请求实体
+         * 
+         * @param names 请求头的名称
+         * @return
+         * @since 2026.10.18
+         */
+        public Builder withFingerprintHeaders(String... names) {
+            taskDef.fingerprintHeaders.addAll(Arrays.asList(names));
+            return this;
+        }
+
+        /**
+         * 指定地址规范化规则，默认为 {@link UriCanonicalizer#DEFAULT}
+         * 
+         * @since 2026.10.18
+         */
+        public Builder withUriCanonicalizer(UriCanonicalizer uriCanonicalizer) {
+            taskDef.uriCanonicalizer = Objects.requireNonNull(uriCanonicalizer);
+            return this;
+        }
+
+        /**
+         * 规范化地址时额外去掉指定的查询参数（如会话编号、时间戳），使只有这些参数不同的任务视为同一个任务
+         * 
+         * @param names 参数名，不区分大小写
+         * @since 2026.10.18
+         */
+        public Builder withIgnoredQueryParams(String... names) {
+            taskDef.uriCanonicalizer = taskDef.uriCanonicalizer.withIgnoredParams(names);
+            return this;
+        }
+
         public Builder withCrawlerInterceptor(Processor handler) {
             taskDef.customProcessors.add(handler);
             return this;
@@ -294,6 +357,34 @@ public class TaskDef implements Comparable<TaskDef>, Serializable {
             }
             return this;
         }
+        
+        /**
+         * 启用Redis请求缓存，并指定缓存的配置（如进程内的近端缓存）
+         * 
+         * @param redisURI "redis://password@localhost:6379/0"
+         * @param options 缓存的配置
+         * @return
+         * @since 2026.10.18
+         */
+        public Builder withRedisCache(String redisURI, RedisCacheOptions options) {
+            if (redisURI != null) {
+                taskDef.redisCacheUri = redisURI;
+                taskDef.customProcessors.add(new RedisCacheProcessor(redisURI, options));
+            }
+            return this;
+        }
+
+        /**
+         * 启用本地磁盘的响应缓存，用于下载类型为临时文件的任务；内容相同的响应只保存一份
+         * 
+         * @param dir 缓存目录，最好与临时文件目录在同一磁盘，以便创建硬链接
+         * @return
+         * @since 2026.10.18
+         */
+        public Builder withBlobCache(Path dir) {
+            taskDef.customProcessors.add(new BlobCacheProcessor(dir));
+            return this;
+        }
 
         public Builder withHTTPProxy(String hostname, int port) {
             HttpHost proxy = new HttpHost(hostname, port);
@@ -389,6 +480,50 @@ public class TaskDef implements Comparable<TaskDef>, Serializable {
             return this;
         }
         
+        /**
+         * 启用当前任务的限流，允许一定的突发；超出速率的任务将被直接延期至可执行的时间
+         * 
+         * @param permitsPerSecond 每秒执行次数
+         * @param burst 允许突发的次数
+         * @return
+         * @since 2026.10.18
+         */
+        public Builder withRateLimit(double permitsPerSecond, int burst) {
+            job.getBlockingWaitFilter().addRateLimit(taskDef, permitsPerSecond, burst);
+            return this;
+        }
+        
+        /**
+         * 启用当前任务按主机的限流，即对访问的每个主机分别限流；同一主机的限流由所有配置了该项的任务共享
+         * 
+         * @param permitsPerSecond 每个主机每秒执行次数
+         * @param burst 每个主机允许突发的次数
+         * @return
+         * @since 2026.10.18
+         */
+        public Builder withHostRateLimit(double permitsPerSecond, int burst) {
+            job.getBlockingWaitFilter().addHostRateLimit(taskDef, permitsPerSecond, burst);
+            return this;
+        }
+        
+        /**
+         * 启用自适应速率：响应正常且延迟稳定时逐步提高速率，被限流（429/503、Retry-After）或延迟突增时迅速降低速率
+         * 
+         * <p>若启用了按主机的限流（{@link #withHostRateLimit(double, int)}），则调整各主机的速率，各主机以初始速率开始；
+         * 否则调整当前任务的速率，未启用当前任务的限流时以初始速率启用。限流器在 {@link #build()} 时确定，与调用顺序无关
+         * 
+         * @param initialRate 初始的每秒请求数
+         * @param minRate 最小的每秒请求数
+         * @param maxRate 最大的每秒请求数
+         * @return
+         * @since 2026.10.18
+         */
+        public Builder withAdaptiveRate(double initialRate, double minRate, double maxRate) {
+            adaptiveInitialRate = initialRate;
+            taskDef.customProcessors.add(new AdaptiveRateProcessor(job.getBlockingWaitFilter(), minRate, maxRate));
+            return this;
+        }
+        
         /**
          * 设置最大执行时间，默认5分钟
          * 
@@ -401,6 +536,22 @@ public class TaskDef implements Comparable<TaskDef>, Serializable {
             return this;
         }
         
+        /**
+         * 启用按主机的访问礼貌：任务池按主机排队，只取出当前允许访问的主机的任务；不满足条件的任务留在队列中，不会被取出后再延期
+         * 
+         * <p>与 {@link #withBlockingMillis(long)} 不同，限制的粒度为主机而不是任务定义。目前仅本地内存的任务池支持
+         * 
+         * @param delayMillis 同一主机两次访问的最小间隔，millis；不大于0表示不限制
+         * @param maxInFlight 同一主机同时执行的最大任务数；不大于0表示不限制
+         * @return
+         * @since 2026.10.18
+         */
+        public Builder withHostPoliteness(long delayMillis, int maxInFlight) {
+            taskDef.hostDelayMillis = delayMillis;
+            taskDef.hostMaxInFlight = maxInFlight;
+            return this;
+        }
+        
         volatile boolean builded = false;
         
         /**
@@ -430,9 +581,27 @@ public class TaskDef implements Comparable<TaskDef>, Serializable {
             taskDef.requestConfigBuilder
                     .setConnectionRequestTimeout(Optional.ofNullable(requestTimeout).orElse(DEFAULT_REQUEST_TIMEOUT))
                     .setConnectTimeout(Optional.ofNullable(timeout).orElse(DEFAULT_TIMEOUT));
+            if (adaptiveInitialRate != null) {
+                initAdaptiveRate(job.getBlockingWaitFilter());
+            }
             return taskDef;
         }
         
+        /**
+         * 确定自适应速率调整的限流器：启用了按主机的限流时只调整主机的限流器，不再添加当前任务的限流，以免其固定的速率限制整体的吞吐量
+         */
+        private void initAdaptiveRate(BlockingWaitFilter filter) {
+            if (filter.setHostInitialRate(taskDef, adaptiveInitialRate)) {
+                return;
+            }
+            GcraRateLimiter limiter = filter.getRateLimiter(taskDef);
+            if (limiter == null) {
+                filter.addRateLimit(taskDef, adaptiveInitialRate, 1);
+            } else {
+                limiter.setRate(adaptiveInitialRate);
+            }
+        }
+        
         /**
          * 向CrawlerJob注册该任务，并返回CrawlerJob以继续链式调用
          * 
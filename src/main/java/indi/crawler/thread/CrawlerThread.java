@@ -23,6 +23,8 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class CrawlerThread implements Runnable, Message {
+    /** 领取任务时的最长等待时间 */
+    private static final long POLL_TIMEOUT_SECONDS = 2;
     private CrawlerController controller;
     @Getter
     private volatile boolean retire;
@@ -54,14 +56,14 @@ public class CrawlerThread implements Runnable, Message {
                 // 领取爬虫任务
                 Task ctx = null;
 //                System.out.println("领取任务：" + currentThread);
-                ctx = controller.poll();
-                // 若没有领取到任务，开始休息
+                try {
+                    // 没有任务时挂起，一旦有任务被提供或延期任务到期就会被唤醒；超时后返回，以便检查是否已退休
+                    ctx = controller.poll(POLL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                // 若没有领取到任务，重新尝试
                 if (ctx == null) {
-//                    System.out.println("领取任务失败：" + currentThread);
-                    try {
-                        TimeUnit.SECONDS.sleep(2);// 休息2s
-                    } catch (InterruptedException e) {
-                    }
                     continue;
                 }
                 currentTask = ctx;
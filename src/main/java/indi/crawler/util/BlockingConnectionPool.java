@@ -0,0 +1,88 @@
+package indi.crawler.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import indi.exception.WrapperException;
+import io.lettuce.core.api.StatefulRedisConnection;
+
+/**
+ * 执行阻塞命令的有界连接池
+ *
+ * <p>阻塞命令会占用整个连接，不能在共用的连接上执行；连接按需创建，数量达到上限后借出时等待归还
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+class BlockingConnectionPool {
+    /**等待归还时检查连接池是否已关闭的间隔*/
+    private static final long CLOSED_CHECK_MILLIS = 1000;
+    private final Supplier<StatefulRedisConnection<String, byte[]>> factory;
+    private final int maxSize;
+    private final BlockingQueue<StatefulRedisConnection<String, byte[]>> idles;
+    private final List<StatefulRedisConnection<String, byte[]>> all = new ArrayList<>();
+    private boolean closed;
+
+    BlockingConnectionPool(Supplier<StatefulRedisConnection<String, byte[]>> factory, int maxSize) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.idles = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    StatefulRedisConnection<String, byte[]> borrow() {
+        StatefulRedisConnection<String, byte[]> connection = idles.poll();
+        if (connection != null) {
+            return connection;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("连接池已关闭");
+            }
+            if (all.size() < maxSize) {
+                connection = factory.get();
+                all.add(connection);
+                return connection;
+            }
+        }
+        try {
+            // 定时检查连接池是否已关闭，避免关闭后一直等待
+            while (true) {
+                connection = idles.poll(CLOSED_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                if (connection != null) {
+                    return connection;
+                }
+                synchronized (this) {
+                    if (closed) {
+                        throw new IllegalStateException("连接池已关闭");
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WrapperException(e);
+        }
+    }
+
+    void release(StatefulRedisConnection<String, byte[]> connection) {
+        synchronized (this) {
+            if (closed) {
+                connection.close();
+                return;
+            }
+        }
+        idles.offer(connection);
+    }
+
+    synchronized void close() {
+        closed = true;
+        for (StatefulRedisConnection<String, byte[]> connection : all) {
+            connection.close();
+        }
+        all.clear();
+        idles.clear();
+    }
+}
@@ -0,0 +1,58 @@
+package indi.crawler.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis各命令的延迟统计（从发出命令到收到响应），用于日志
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+public class RedisCommandMetrics {
+    private final Map<String, Stat> stats = new ConcurrentHashMap<>();
+
+    void record(String command, long nanos) {
+        stats.computeIfAbsent(command, c -> new Stat()).record(nanos);
+    }
+
+    /**
+     * @return 命令 -> 次数、平均延迟与最大延迟
+     */
+    public Map<String, String> snapshot() {
+        Map<String, String> result = new TreeMap<>();
+        for (Map.Entry<String, Stat> e : stats.entrySet()) {
+            result.put(e.getKey(), e.getValue().toString());
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    private static class Stat {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        @Override
+        public String toString() {
+            long n = count.sum();
+            double avgMillis = n == 0 ? 0 : (double) totalNanos.sum() / n / TimeUnit.MILLISECONDS.toNanos(1);
+            double maxMillis = (double) maxNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+            return String.format("n=%d, avg=%.2fms, max=%.2fms", n, avgMillis, maxMillis);
+        }
+    }
+}
@@ -1,73 +1,161 @@
 package indi.crawler.util;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
+import indi.crawler.codec.ValueCodec;
 import indi.data.StringObjectRedisCodec;
 import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisFuture;
 import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisCommands;
 import io.lettuce.core.codec.RedisCodec;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 基于lettuce操作Redis的工具类
- * 
+ *
+ * <p>2026.10.18 此前为每个线程的每个uri创建一个连接且从不关闭，线程多时会有数百个连接。现改为：
+ * <ul>
+ * <li>非阻塞命令：每个uri、每种编解码器共用一个多路复用的连接（lettuce的连接是线程安全的）
+ * <li>阻塞命令：每个uri一个有界的连接池，见 {@link #callBlocking(String, Function)}
+ * <li>通过 {@link #retain(String)} 与 {@link #release(String)} 按引用计数关闭连接与客户端，{@link #shutdown(String)} 强制关闭
+ * <li>记录各命令的延迟，见 {@link #getMetrics()}
+ * </ul>
+ *
  * @author DragonBoom
  */
 @Slf4j
 public class RedisUtils {
     private static final RedisCodec<String, Object> STRING_OBJECT_CODEC = new StringObjectRedisCodec();
-    private static Map<String, ThreadLocal<RedisAsyncCommands<String, Object>>> commandsMap = new ConcurrentHashMap<>();
-    private static ConcurrentHashMap<String, RedisClient> redisClientMap = new ConcurrentHashMap<>();
+    private static final RedisCodec<String, byte[]> STRING_BYTES_CODEC = new StringBytesRedisCodec();
+    /**每个uri的阻塞连接池的最大连接数*/
+    private static final int MAX_BLOCKING_CONNECTIONS = 4;
+
+    /**(uri, 编解码器) -> 共用的连接*/
+    private static Map<List<Object>, SharedConnection<?>> sharedConnections = new ConcurrentHashMap<>();
+    /**自定义值编解码器 -> 适配后的Redis编解码器，确保同一个编解码器共用连接*/
+    private static Map<ValueCodec<?>, RedisCodec<String, ?>> valueCodecs = new ConcurrentHashMap<>();
+    private static Map<String, BlockingConnectionPool> blockingPools = new ConcurrentHashMap<>();
+    private static Map<String, RedisClient> redisClientMap = new ConcurrentHashMap<>();
+    /**uri -> 持有者数，由lock保护*/
+    private static Map<String, Integer> holders = new HashMap<>();
     private static Lock lock = new ReentrantLock();
-    
+    private static final RedisCommandMetrics METRICS = new RedisCommandMetrics();
+
     /**
-     * 获取异步命令。为每个线程（而不是每次调用）的每个uri创建一个连接（以确保brpop不会导致与其他线程的lpush阻塞）。
-     * 
+     * 获取异步命令。同一个uri共用一个连接，不能执行阻塞命令
+     *
      * @param redisURI redis地址（含密码）；目前一个redisURI对应一个单例RedisClient，
      * 而且redisURI字符串必须完全相同才会获得同一个Clinet。后续有空再考虑优化这点
      */
     public static RedisAsyncCommands<String, Object> getAsyncCommands(String redisURI) {
-        // 获取指定连接的ThreadLocal<RedisAsyncCommands>
-        ThreadLocal<RedisAsyncCommands<String, Object>> commandsThreadLocal = commandsMap.get(redisURI);
-        
-        if (commandsThreadLocal == null) {
+        return getSharedCommands(redisURI, STRING_OBJECT_CODEC);
+    }
+
+    /**
+     * 获取值为原始字节的异步命令，连接的使用方式与 {@link #getAsyncCommands(String)} 相同
+     *
+     * <p>值需通过 {@link #encodeObject(Object)} 与 {@link #decodeObject(byte[])} 转换，与前者写入的值的格式一致
+     *
+     * @since 2026.10.18
+     */
+    public static RedisAsyncCommands<String, byte[]> getAsyncBytesCommands(String redisURI) {
+        return getSharedCommands(redisURI, STRING_BYTES_CODEC);
+    }
+
+    /**
+     * 获取使用自定义值编解码器的异步命令，连接的使用方式与 {@link #getAsyncCommands(String)} 相同
+     *
+     * <p>同一个编解码器对象共用连接，因此编解码器应为单例
+     *
+     * @since 2026.10.18
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> RedisAsyncCommands<String, V> getAsyncCommands(String redisURI, ValueCodec<V> codec) {
+        RedisCodec<String, V> redisCodec = (RedisCodec<String, V>) valueCodecs.computeIfAbsent(codec,
+                c -> new ValueRedisCodec<>(codec));
+        return getSharedCommands(redisURI, redisCodec);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> RedisAsyncCommands<String, V> getSharedCommands(String redisURI, RedisCodec<String, V> codec) {
+        List<Object> key = Arrays.asList(redisURI, codec);
+        SharedConnection<V> shared = (SharedConnection<V>) sharedConnections.get(key);
+        if (shared == null) {
             lock.lock();
-            // 建立连接并获取异步命令
             try {
-                if (commandsMap.get(redisURI) == null) {
-                    // 在这里而不是值域创建匿名内部类，以传入redisURI
-                    commandsThreadLocal = new ThreadLocal<RedisAsyncCommands<String, Object>>() {
-                        
-                        @Override
-                        protected RedisAsyncCommands<String, Object> initialValue() {
-                            // 获取client
-                            RedisClient client = getClient(redisURI);
-                            log.info("为线程 {} 新建Redis连接：{}", Thread.currentThread(), redisURI);
-                            // 建立连接
-                            StatefulRedisConnection<String, Object> connect = client.connect(STRING_OBJECT_CODEC);
-                            // 获取异步命令
-                            return connect.async();
-                        }
-                        
-                    };
-                    commandsMap.put(redisURI, commandsThreadLocal);
+                shared = (SharedConnection<V>) sharedConnections.get(key);
+                if (shared == null) {
+                    log.info("新建共用的Redis连接：{}", redisURI);
+                    shared = new SharedConnection<>(getClient(redisURI).connect(codec));
+                    sharedConnections.put(key, shared);
                 }
             } finally {
                 lock.unlock();
             }
         }
-        
-        return commandsThreadLocal.get();
+        return shared.commands;
+    }
+
+    /**
+     * 从阻塞连接池借出一个连接执行阻塞命令（如带BLOCK的XREADGROUP），执行完毕后归还
+     *
+     * <p>连接池已满时等待其他线程归还，因此同时阻塞的线程数不超过连接池的大小
+     *
+     * @param fun 使用同步命令执行阻塞命令，不能保存命令对象
+     * @since 2026.10.18
+     */
+    public static <T> T callBlocking(String redisURI, Function<RedisCommands<String, byte[]>, T> fun) {
+        BlockingConnectionPool pool = blockingPools.computeIfAbsent(redisURI,
+                uri -> new BlockingConnectionPool(() -> getClient(uri).connect(STRING_BYTES_CODEC),
+                        MAX_BLOCKING_CONNECTIONS));
+        StatefulRedisConnection<String, byte[]> connection = pool.borrow();
+        try {
+            return fun.apply(connection.sync());
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    /**
+     * 用 {@link #getAsyncCommands(String)} 的值编码器将对象编码为字节
+     *
+     * @since 2026.10.18
+     */
+    public static byte[] encodeObject(Object value) {
+        ByteBuffer buffer = STRING_OBJECT_CODEC.encodeValue(value);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 用 {@link #getAsyncCommands(String)} 的值编码器将字节解码为对象
+     *
+     * @since 2026.10.18
+     */
+    public static Object decodeObject(byte[] bytes) {
+        return STRING_OBJECT_CODEC.decodeValue(ByteBuffer.wrap(bytes));
     }
 
     /**
      * 获取单例RedisClient，用内存缓存实现。
-     * 
+     *
+     * <p>2026.10.18 此前的双重检查在锁内没有重新读取缓存，并发时可能创建多个客户端，已更正
+     *
      * @param redisURI redis地址（含密码）；目前一个redisURI对应一个单例RedisClient，
      * 而且redisURI字符串必须完全相同才会获得同一个Clinet。后续有空再考虑优化这点
      * @return
@@ -77,6 +165,7 @@ public class RedisUtils {
         if (redisClient == null) {
             lock.lock();
             try {
+                redisClient = redisClientMap.get(redisURI);
                 if (redisClient == null) {
                     redisClient = RedisClient.create(redisURI);
                     redisClient.setDefaultTimeout(Duration.ofMinutes(2));
@@ -88,4 +177,125 @@ public class RedisUtils {
         }
         return redisClient;
     }
+
+    /**
+     * 各命令的延迟统计
+     *
+     * @since 2026.10.18
+     */
+    public static RedisCommandMetrics getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * 登记一个指定uri的持有者（如爬虫任务、缓存处理器）；持有者不再使用时应调用 {@link #release(String)}
+     *
+     * <p>只有所有持有者都释放后才会关闭连接，避免一个爬虫任务结束时关闭其他仍在使用同一uri的对象的连接
+     *
+     * @since 2026.10.18
+     */
+    public static void retain(String redisURI) {
+        lock.lock();
+        try {
+            holders.merge(redisURI, 1, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放一个指定uri的持有者；最后一个持有者释放时关闭该uri的所有连接与客户端
+     *
+     * @since 2026.10.18
+     */
+    public static void release(String redisURI) {
+        lock.lock();
+        try {
+            Integer count = holders.get(redisURI);
+            if (count == null) {
+                log.warn("释放未登记的Redis持有者：{}", redisURI);
+                return;
+            }
+            if (count > 1) {
+                holders.put(redisURI, count - 1);
+                return;
+            }
+            holders.remove(redisURI);
+            shutdown(redisURI);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 强制关闭指定uri的所有连接与客户端，不论是否仍有持有者；之后再次获取命令时会重新连接
+     *
+     * @since 2026.10.18
+     */
+    public static void shutdown(String redisURI) {
+        lock.lock();
+        try {
+            List<List<Object>> keys = new ArrayList<>();
+            for (List<Object> key : sharedConnections.keySet()) {
+                if (key.get(0).equals(redisURI)) {
+                    keys.add(key);
+                }
+            }
+            for (List<Object> key : keys) {
+                sharedConnections.remove(key).connection.close();
+            }
+            BlockingConnectionPool pool = blockingPools.remove(redisURI);
+            if (pool != null) {
+                pool.close();
+            }
+            RedisClient client = redisClientMap.remove(redisURI);
+            if (client != null) {
+                log.info("关闭Redis客户端：{}", redisURI);
+                client.shutdown();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 关闭所有连接与客户端
+     *
+     * @since 2026.10.18
+     */
+    public static void shutdown() {
+        for (String redisURI : new ArrayList<>(redisClientMap.keySet())) {
+            shutdown(redisURI);
+        }
+    }
+
+    /**
+     * 共用的连接及其异步命令；异步命令经过代理，以统计各命令的延迟
+     */
+    private static class SharedConnection<V> {
+        private final StatefulRedisConnection<String, V> connection;
+        private final RedisAsyncCommands<String, V> commands;
+
+        @SuppressWarnings("unchecked")
+        private SharedConnection(StatefulRedisConnection<String, V> connection) {
+            this.connection = connection;
+            RedisAsyncCommands<String, V> target = connection.async();
+            this.commands = (RedisAsyncCommands<String, V>) Proxy.newProxyInstance(
+                    RedisAsyncCommands.class.getClassLoader(), new Class<?>[] { RedisAsyncCommands.class },
+                    (proxy, method, args) -> {
+                        long start = System.nanoTime();
+                        Object result;
+                        try {
+                            result = method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if (result instanceof RedisFuture) {
+                            String name = method.getName();
+                            ((RedisFuture<?>) result).whenComplete((r, t) -> METRICS.record(name, System.nanoTime() - start));
+                        }
+                        return result;
+                    });
+        }
+    }
 }
@@ -0,0 +1,40 @@
+package indi.crawler.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import io.lettuce.core.codec.RedisCodec;
+
+/**
+ * 键为UTF-8字符串、值为原始字节的编解码器
+ *
+ * <p>用于需要在Lua脚本中拼接、截取值的场景（如可靠队列的出租记录），值的序列化由调用方负责
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+public class StringBytesRedisCodec implements RedisCodec<String, byte[]> {
+    private static final byte[] EMPTY = new byte[0];
+
+    @Override
+    public String decodeKey(ByteBuffer bytes) {
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    @Override
+    public byte[] decodeValue(ByteBuffer bytes) {
+        byte[] result = new byte[bytes.remaining()];
+        bytes.get(result);
+        return result;
+    }
+
+    @Override
+    public ByteBuffer encodeKey(String key) {
+        return key == null ? ByteBuffer.wrap(EMPTY) : StandardCharsets.UTF_8.encode(key);
+    }
+
+    @Override
+    public ByteBuffer encodeValue(byte[] value) {
+        return ByteBuffer.wrap(value == null ? EMPTY : value);
+    }
+}
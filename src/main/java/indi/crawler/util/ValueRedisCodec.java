@@ -0,0 +1,42 @@
+package indi.crawler.util;
+
+import java.nio.ByteBuffer;
+
+import indi.crawler.codec.ValueCodec;
+import io.lettuce.core.codec.RedisCodec;
+
+/**
+ * 将 {@link ValueCodec} 适配为键为UTF-8字符串的Redis编解码器
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+class ValueRedisCodec<V> implements RedisCodec<String, V> {
+    private static final StringBytesRedisCodec STRING_BYTES_CODEC = new StringBytesRedisCodec();
+
+    private final ValueCodec<V> codec;
+
+    ValueRedisCodec(ValueCodec<V> codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public String decodeKey(ByteBuffer bytes) {
+        return STRING_BYTES_CODEC.decodeKey(bytes);
+    }
+
+    @Override
+    public V decodeValue(ByteBuffer bytes) {
+        return codec.decode(STRING_BYTES_CODEC.decodeValue(bytes));
+    }
+
+    @Override
+    public ByteBuffer encodeKey(String key) {
+        return STRING_BYTES_CODEC.encodeKey(key);
+    }
+
+    @Override
+    public ByteBuffer encodeValue(V value) {
+        return STRING_BYTES_CODEC.encodeValue(codec.encode(value));
+    }
+}
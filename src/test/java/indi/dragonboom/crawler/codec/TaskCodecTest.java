@@ -0,0 +1,71 @@
+package indi.dragonboom.crawler.codec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import indi.crawler.codec.ResponseEntityCodec;
+import indi.crawler.codec.TaskCodec;
+import indi.crawler.codec.TaskRecord;
+import indi.crawler.task.ResponseEntity;
+
+class TaskCodecTest {
+
+    @Test
+    void taskTest() {
+        TaskRecord record = new TaskRecord("post", URI.create("https://danbooru.donmai.us/posts/1?tags=a%20b"), "{}",
+                -3, 2, "arg");
+        byte[] bytes = TaskCodec.DEFAULT.encode(record);
+        assertTrue(TaskCodec.isEncoded(bytes));
+        TaskRecord decoded = TaskCodec.DEFAULT.decode(bytes);
+        assertEquals(record.getTaskDefName(), decoded.getTaskDefName());
+        assertEquals(record.getUri(), decoded.getUri());
+        assertEquals(record.getRequestEntityStr(), decoded.getRequestEntityStr());
+        assertEquals(-3, decoded.getPriority());
+        assertEquals(2, decoded.getAttempts());
+        assertEquals("arg", decoded.getArg());
+
+        // 可空字段与非字符串参数
+        ArrayList<Integer> arg = new ArrayList<>(Arrays.asList(1, 2, 3));
+        decoded = TaskCodec.DEFAULT.decode(TaskCodec.DEFAULT.encode(new TaskRecord("post", null, null, 0, 0, arg)));
+        assertNull(decoded.getUri());
+        assertNull(decoded.getRequestEntityStr());
+        assertEquals(arg, decoded.getArg());
+
+        // 压缩后仍可由默认的编解码器解码
+        byte[] compressed = new TaskCodec(0).encode(record);
+        assertEquals(record.getUri(), TaskCodec.DEFAULT.decode(compressed).getUri());
+
+        // Java序列化的数据以0xAC开头
+        assertFalse(TaskCodec.isEncoded(new byte[] { (byte) 0xAC, (byte) 0xED, 0, 5 }));
+    }
+
+    @Test
+    void responseEntityTest() {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            html.append("<li>第").append(i).append("项</li>");
+        }
+        ResponseEntity entity = new ResponseEntity(html.toString(), ResponseEntity.TYPE.STRING);
+        byte[] bytes = ResponseEntityCodec.DEFAULT.encode(entity);
+        // 超过阈值时压缩
+        assertTrue(bytes.length < html.length());
+        ResponseEntity decoded = ResponseEntityCodec.DEFAULT.decode(bytes);
+        assertEquals(ResponseEntity.TYPE.STRING, decoded.getType());
+        assertEquals(html.toString(), decoded.getContent());
+
+        byte[] content = { 1, 2, 3 };
+        decoded = ResponseEntityCodec.DEFAULT.decode(
+                ResponseEntityCodec.DEFAULT.encode(new ResponseEntity(content, ResponseEntity.TYPE.BYTE_ARRAY)));
+        assertArrayEquals(content, (byte[]) decoded.getContent());
+        assertEquals(3, decoded.size());
+    }
+}
@@ -0,0 +1,40 @@
+package indi.dragonboom.crawler.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import indi.crawler.filter.GcraRateLimiter;
+
+class GcraRateLimiterTest {
+
+    @Test
+    void reserveTest() {
+        // 每秒10次，即间隔100ms，允许突发3次
+        GcraRateLimiter limiter = new GcraRateLimiter(10, 3);
+        long now = 1_000_000L;
+        assertEquals(now, limiter.reserve(now));
+        assertEquals(now, limiter.reserve(now));
+        assertEquals(now, limiter.reserve(now));
+        // 突发用尽后，按间隔依次预约
+        assertEquals(now + 100, limiter.reserve(now));
+        assertEquals(now + 200, limiter.reserve(now));
+        // 空闲足够久后恢复突发
+        long later = now + 10_000;
+        assertEquals(later, limiter.reserve(later));
+        assertEquals(later, limiter.reserve(later));
+    }
+
+    @Test
+    void chainTest() {
+        GcraRateLimiter slow = new GcraRateLimiter(1, 1);
+        GcraRateLimiter fast = new GcraRateLimiter(100, 1);
+        long now = 1_000_000L;
+        assertEquals(now, fast.reserve(slow.reserve(now)));
+        // 由慢的限流器决定执行时间
+        assertEquals(now + 1000, fast.reserve(slow.reserve(now)));
+
+        assertThrows(IllegalArgumentException.class, () -> new GcraRateLimiter(0, 1));
+    }
+}
@@ -0,0 +1,104 @@
+package indi.dragonboom.crawler.processor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.Test;
+
+import indi.crawler.processor.ProcessorContext;
+import indi.crawler.processor.ProcessorResult;
+import indi.crawler.processor.http.BlobCacheProcessor;
+import indi.crawler.task.ResponseEntity;
+import indi.crawler.task.Task;
+import indi.crawler.task.TaskFactory;
+import indi.crawler.task.def.TaskDef;
+
+class BlobCacheProcessorTest {
+    private static final byte[] CONTENT = "blob content".getBytes(StandardCharsets.UTF_8);
+
+    private TaskDef taskDef(Path tmpDir) {
+        return TaskDef.Builder.begin("blob").withResultType(ResponseEntity.TYPE.TMP_FILE).withTmpDir(tmpDir).build();
+    }
+
+    private Task task(TaskDef taskDef, String uri) {
+        return new TaskFactory(null).build(taskDef, URI.create(uri), (HttpEntity) null);
+    }
+
+    /**
+     * 模拟下载完成：写入临时文件并设置响应
+     */
+    private void download(Task task, Path tmpDir, int statusCode) throws Exception {
+        Path file = Files.createTempFile(tmpDir, "download", ".tmp");
+        Files.write(file, CONTENT);
+        task.getResponseEntity().setContent(file.toFile());
+        task.setResponse(new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, null));
+    }
+
+    @Test
+    void roundTripTest() throws Throwable {
+        Path tmpDir = Files.createTempDirectory("blob-tmp");
+        BlobCacheProcessor processor = new BlobCacheProcessor(Files.createTempDirectory("blob-cache"));
+        TaskDef taskDef = taskDef(tmpDir);
+
+        Task first = task(taskDef, "https://example.com/a.jpg");
+        ProcessorContext firstCtx = new ProcessorContext(first);
+        assertEquals(ProcessorResult.KEEP_GOING, processor.executeRequest0(firstCtx));
+        download(first, tmpDir, 200);
+        processor.handleResult0(firstCtx);
+
+        // 同一地址命中缓存，不再发送请求，临时文件的内容与缓存一致
+        Task second = task(taskDef, "https://EXAMPLE.com/a.jpg");
+        ProcessorContext secondCtx = new ProcessorContext(second);
+        assertEquals(ProcessorResult.CONTINUE_STAGE, processor.executeRequest0(secondCtx));
+        assertEquals(ProcessorResult.CONTINUE_STAGE, processor.receiveResponse0(secondCtx));
+        File cached = (File) second.getResponseEntity().getContent();
+        assertEquals(tmpDir, cached.toPath().getParent());
+        assertArrayEquals(CONTENT, Files.readAllBytes(cached.toPath()));
+    }
+
+    @Test
+    void missTest() throws Throwable {
+        Path tmpDir = Files.createTempDirectory("blob-tmp");
+        BlobCacheProcessor processor = new BlobCacheProcessor(Files.createTempDirectory("blob-cache"));
+        TaskDef taskDef = taskDef(tmpDir);
+
+        // 非2xx的响应不缓存
+        Task failed = task(taskDef, "https://example.com/b.jpg");
+        ProcessorContext failedCtx = new ProcessorContext(failed);
+        processor.executeRequest0(failedCtx);
+        download(failed, tmpDir, 404);
+        processor.handleResult0(failedCtx);
+        assertEquals(ProcessorResult.KEEP_GOING, processor.executeRequest0(new ProcessorContext(task(taskDef, "https://example.com/b.jpg"))));
+
+        // 其他地址未命中
+        assertEquals(ProcessorResult.KEEP_GOING, processor.executeRequest0(new ProcessorContext(task(taskDef, "https://example.com/c.jpg"))));
+    }
+
+    @Test
+    void evictTest() throws Throwable {
+        Path tmpDir = Files.createTempDirectory("blob-tmp");
+        BlobCacheProcessor processor = new BlobCacheProcessor(Files.createTempDirectory("blob-cache"));
+        TaskDef taskDef = taskDef(tmpDir);
+
+        Task task = task(taskDef, "https://example.com/d.jpg");
+        ProcessorContext ctx = new ProcessorContext(task);
+        processor.executeRequest0(ctx);
+        download(task, tmpDir, 200);
+        processor.handleResult0(ctx);
+
+        assertTrue(processor.evict(task));
+        assertFalse(processor.evict(task));
+        assertEquals(ProcessorResult.KEEP_GOING, processor.executeRequest0(new ProcessorContext(task(taskDef, "https://example.com/d.jpg"))));
+    }
+}
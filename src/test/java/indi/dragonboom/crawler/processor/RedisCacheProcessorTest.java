@@ -0,0 +1,54 @@
+package indi.dragonboom.crawler.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.http.HttpEntity;
+import org.junit.jupiter.api.Test;
+
+import indi.crawler.processor.http.HttpLogProcessor;
+import indi.crawler.processor.http.RedisCacheProcessor;
+import indi.crawler.task.Task;
+import indi.crawler.task.TaskFactory;
+import indi.crawler.task.def.TaskDef;
+
+class RedisCacheProcessorTest {
+
+    /**
+     * 只记录被删除缓存的任务，不访问Redis
+     */
+    private static class RecordingCacheProcessor extends RedisCacheProcessor {
+        private final List<Task> evicted = new ArrayList<>();
+
+        RecordingCacheProcessor() {
+            super("redis://localhost");
+        }
+
+        @Override
+        protected void evict0(Task task) {
+            evicted.add(task);
+        }
+    }
+
+    @Test
+    void evictTest() {
+        RecordingCacheProcessor first = new RecordingCacheProcessor();
+        RecordingCacheProcessor second = new RecordingCacheProcessor();
+        TaskDef taskDef = TaskDef.Builder.begin("evict")
+                .withCrawlerInterceptor(first)
+                .withCrawlerInterceptor(new HttpLogProcessor())
+                .withCrawlerInterceptor(second)
+                .build();
+        Task task = new TaskFactory(null).build(taskDef, URI.create("https://example.com/a"), (HttpEntity) null);
+
+        // 任务定义中的所有Redis缓存处理器都删除缓存，其他处理器不受影响
+        RedisCacheProcessor.evict(task);
+        assertEquals(1, first.evicted.size());
+        assertSame(task, first.evicted.get(0));
+        assertEquals(1, second.evicted.size());
+    }
+}
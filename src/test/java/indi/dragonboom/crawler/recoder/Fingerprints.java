@@ -0,0 +1,26 @@
+package indi.dragonboom.crawler.recoder;
+
+import java.util.Collections;
+
+import org.apache.http.client.methods.HttpGet;
+
+import indi.crawler.task.Fingerprinter;
+
+/**
+ * 生成测试用的指纹：与实际运行时一样由 {@link Fingerprinter} 计算
+ *
+ * @author DragonBoom
+ * @since 2026.10.18
+ */
+final class Fingerprints {
+
+    private Fingerprints() {
+    }
+
+    /**
+     * 地址为 https://example.com/{i} 的GET请求的指纹
+     */
+    static String of(int i) {
+        return Fingerprinter.fingerprint(new HttpGet("https://example.com/" + i), Collections.emptyList());
+    }
+}
@@ -0,0 +1,103 @@
+package indi.dragonboom.crawler.recoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import indi.crawler.recoder.PersistentRecorder;
+
+class PersistentRecorderTest {
+
+    @Test
+    void restartTest() throws Exception {
+        Path dir = Files.createTempDirectory("recorder");
+        PersistentRecorder recorder = new PersistentRecorder(dir, Integer.MAX_VALUE);
+        for (int i = 0; i < 100; i++) {
+            assertFalse(recorder.checkAndRecord(Fingerprints.of(i)));
+        }
+        assertTrue(recorder.checkAndRecord(Fingerprints.of(1)));
+        recorder.compact();
+        for (int i = 100; i < 200; i++) {
+            assertFalse(recorder.checkAndRecord(Fingerprints.of(i)));
+        }
+        assertTrue(recorder.remove(Fingerprints.of(2)));// 已压缩到索引中的记录
+        assertTrue(recorder.remove(Fingerprints.of(102)));// 仍在日志中的记录
+        recorder.close();
+
+        // 重启后从索引与日志中恢复
+        recorder = new PersistentRecorder(dir, Integer.MAX_VALUE);
+        assertTrue(recorder.contains(Fingerprints.of(1)));
+        assertTrue(recorder.contains(Fingerprints.of(101)));
+        assertFalse(recorder.contains(Fingerprints.of(2)));
+        assertFalse(recorder.contains(Fingerprints.of(102)));
+        assertFalse(recorder.contains(Fingerprints.of(200)));
+
+        recorder.compact();
+        recorder.close();
+        recorder = new PersistentRecorder(dir, Integer.MAX_VALUE);
+        assertEquals(198, recorder.size());
+        assertTrue(recorder.contains(Fingerprints.of(199)));
+        assertFalse(recorder.contains(Fingerprints.of(102)));
+        recorder.close();
+    }
+
+    @Test
+    void recoverCompactionTest() throws Exception {
+        // 压缩中途宕机：冻结的日志（log.compacting）与之后的日志（log.dat）同时存在
+        Path frozen = Files.createTempDirectory("recorder");
+        PersistentRecorder recorder = new PersistentRecorder(frozen, Integer.MAX_VALUE);
+        for (int i = 0; i < 10; i++) {
+            recorder.checkAndRecord(Fingerprints.of(i));
+        }
+        recorder.close();
+        Path current = Files.createTempDirectory("recorder");
+        recorder = new PersistentRecorder(current, Integer.MAX_VALUE);
+        recorder.checkAndRecord(Fingerprints.of(3));
+        recorder.remove(Fingerprints.of(3));// 较新的删除
+        for (int i = 10; i < 15; i++) {
+            recorder.checkAndRecord(Fingerprints.of(i));
+        }
+        recorder.close();
+        Path dir = Files.createTempDirectory("recorder");
+        Files.copy(frozen.resolve("log.dat"), dir.resolve("log.compacting"));
+        Files.copy(current.resolve("log.dat"), dir.resolve("log.dat"));
+
+        recorder = new PersistentRecorder(dir, Integer.MAX_VALUE);
+        assertFalse(Files.exists(dir.resolve("log.compacting")));
+        // 只追加冻结的日志中、当前日志没有的9条记录
+        assertEquals((7 + 9) * 17, Files.size(dir.resolve("log.dat")));
+        assertTrue(recorder.contains(Fingerprints.of(0)));
+        assertFalse(recorder.contains(Fingerprints.of(3)));
+        assertTrue(recorder.contains(Fingerprints.of(14)));
+        recorder.close();
+
+        // 再次重启，较新的删除仍然有效
+        recorder = new PersistentRecorder(dir, Integer.MAX_VALUE);
+        assertFalse(recorder.contains(Fingerprints.of(3)));
+        assertTrue(recorder.contains(Fingerprints.of(9)));
+        recorder.close();
+    }
+
+    @Test
+    void closeTest() throws Exception {
+        Path dir = Files.createTempDirectory("recorder");
+        PersistentRecorder recorder = new PersistentRecorder(dir, 10);
+        for (int i = 0; i < 100; i++) {
+            recorder.checkAndRecord(Fingerprints.of(i));
+        }
+        // 关闭时等待后台压缩完成，之后的压缩不再执行
+        recorder.close();
+        recorder.compact();
+        recorder = new PersistentRecorder(dir, Integer.MAX_VALUE);
+        assertEquals(100, recorder.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(recorder.contains(Fingerprints.of(i)));
+        }
+        recorder.close();
+    }
+}
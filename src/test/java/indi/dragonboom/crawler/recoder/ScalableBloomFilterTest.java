@@ -0,0 +1,42 @@
+package indi.dragonboom.crawler.recoder;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import indi.crawler.recoder.ScalableBloomFilter;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void putTest() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        assertTrue(filter.put(Fingerprints.of(1)));
+        assertFalse(filter.put(Fingerprints.of(1)));
+        assertTrue(filter.mightContain(Fingerprints.of(1)));
+        assertFalse(filter.mightContain(Fingerprints.of(2)));
+    }
+
+    @Test
+    void growTest() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        int n = 20000;
+        for (int i = 0; i < n; i++) {
+            filter.put(Fingerprints.of(i));
+        }
+        // 超出容量后扩容，且已添加的元素一定能查到
+        assertTrue(filter.stageCount() > 1);
+        for (int i = 0; i < n; i++) {
+            assertTrue(filter.mightContain(Fingerprints.of(i)));
+        }
+        // 总误判率不超过初始误判率的2倍
+        int falsePositives = 0;
+        for (int i = n; i < n * 2; i++) {
+            if (filter.mightContain(Fingerprints.of(i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < n * 0.02, "误判数：" + falsePositives);
+    }
+}
@@ -0,0 +1,82 @@
+package indi.dragonboom.crawler.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.Test;
+
+import indi.crawler.task.Fingerprinter;
+
+class FingerprinterTest {
+
+    @Test
+    void requestTest() throws Exception {
+        List<String> none = Collections.emptyList();
+        String fingerprint = Fingerprinter.fingerprint(new HttpGet("https://Example.com/a/./b?x=1"), none);
+        assertEquals(32, fingerprint.length());
+        // 协议、主机的大小写与路径中的“.”不影响指纹
+        assertEquals(fingerprint, Fingerprinter.fingerprint(new HttpGet("HTTPS://example.com/a/b?x=1"), none));
+        assertNotEquals(fingerprint, Fingerprinter.fingerprint(new HttpGet("https://example.com/a/b?x=2"), none));
+
+        // 指定的请求头计入指纹
+        HttpGet withCookie = new HttpGet("https://example.com/a/b?x=1");
+        withCookie.setHeader("Cookie", "a=1");
+        assertEquals(fingerprint, Fingerprinter.fingerprint(withCookie, none));
+        assertNotEquals(fingerprint, Fingerprinter.fingerprint(withCookie, Arrays.asList("Cookie")));
+    }
+
+    @Test
+    void entityTest() throws Exception {
+        List<String> none = Collections.emptyList();
+        HttpPost post = new HttpPost("https://example.com/search");
+        post.setEntity(new StringEntity("q=1"));
+        String fingerprint = Fingerprinter.fingerprint(post, none);
+        // 可重复读取的实体计算后仍可读取，结果不变
+        assertEquals(fingerprint, Fingerprinter.fingerprint(post, none));
+
+        HttpPost other = new HttpPost("https://example.com/search");
+        other.setEntity(new StringEntity("q=2"));
+        assertNotEquals(fingerprint, Fingerprinter.fingerprint(other, none));
+
+    }
+
+    @Test
+    void streamEntityTest() throws Exception {
+        List<String> none = Collections.emptyList();
+        // 长度相同、内容不同的流的指纹不同
+        HttpPost first = streamPost("q=1", 3);
+        HttpPost second = streamPost("q=2", 3);
+        String fingerprint = Fingerprinter.fingerprint(first, none);
+        assertNotEquals(fingerprint, Fingerprinter.fingerprint(second, none));
+        // 长度未知（分块传输）时同样按内容计算
+        assertNotEquals(Fingerprinter.fingerprint(streamPost("q=1", -1), none),
+                Fingerprinter.fingerprint(streamPost("q=2", -1), none));
+
+        // 流被读入内存并替换请求的实体，请求仍可发送，且与相同内容的可重复读取的实体指纹相同
+        assertTrue(first.getEntity().isRepeatable());
+        assertEquals("q=1", EntityUtils.toString(first.getEntity()));
+        assertEquals(fingerprint, Fingerprinter.fingerprint(first, none));
+        HttpPost string = new HttpPost("https://example.com/search");
+        string.setEntity(new StringEntity("q=1", (ContentType) null));
+        assertEquals(fingerprint, Fingerprinter.fingerprint(string, none));
+    }
+
+    private static HttpPost streamPost(String body, long length) {
+        HttpPost post = new HttpPost("https://example.com/search");
+        post.setEntity(new InputStreamEntity(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), length));
+        return post;
+    }
+}
@@ -0,0 +1,38 @@
+package indi.dragonboom.crawler.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import indi.crawler.task.TimingWheel;
+
+class TimingWheelTest {
+
+    @Test
+    void expireTest() throws InterruptedException {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        long now = System.currentTimeMillis();
+        wheel.add("now", now - 1);
+        wheel.add("soon", now + 50);
+        wheel.add("later", now + 5000);// 位于上层时间轮
+        assertEquals(3, wheel.size());
+
+        List<String> expired = wheel.pollExpired(System.currentTimeMillis());
+        assertEquals(1, expired.size());
+        assertEquals("now", expired.get(0));
+
+        expired = wheel.awaitExpired(1000);
+        assertEquals(1, expired.size());
+        assertEquals("soon", expired.get(0));
+        assertTrue(System.currentTimeMillis() >= now + 49);
+
+        assertTrue(wheel.remove("later"));
+        assertFalse(wheel.remove("later"));
+        assertTrue(wheel.isEmpty());
+        assertTrue(wheel.awaitExpired(20).isEmpty());
+    }
+}
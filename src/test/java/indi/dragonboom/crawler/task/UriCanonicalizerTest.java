@@ -0,0 +1,34 @@
+package indi.dragonboom.crawler.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.Test;
+
+import indi.crawler.task.UriCanonicalizer;
+
+class UriCanonicalizerTest {
+
+    @Test
+    void canonicalizeTest() {
+        UriCanonicalizer canonicalizer = UriCanonicalizer.DEFAULT;
+        assertEquals("https://example.com/", canonicalizer.canonicalize(URI.create("HTTPS://Example.COM:443")));
+        assertEquals("http://example.com:8080/a/c", canonicalizer.canonicalize(URI.create("http://example.com:8080/a/./b/../c#top")));
+        // 不需要编码的字符解码，其余的编码转为大写
+        assertEquals("https://example.com/~a/%E4%B8%AD?q=%2F", canonicalizer.canonicalize(URI.create("https://example.com/%7Ea/%e4%b8%ad?q=%2f")));
+        assertEquals("https://example.com/b", canonicalizer.canonicalize(URI.create("https://example.com/a/%2E%2E/b")));
+    }
+
+    @Test
+    void queryTest() {
+        UriCanonicalizer canonicalizer = UriCanonicalizer.DEFAULT;
+        // 按参数名排序，同名参数保持原有顺序，去掉跟踪参数
+        assertEquals("https://example.com/?a=1&b=2&b=1",
+                canonicalizer.canonicalize(URI.create("https://example.com/?b=2&utm_source=x&a=1&b=1&fbclid=y")));
+        assertEquals("https://example.com/", canonicalizer.canonicalize(URI.create("https://example.com/?utm_medium=x&")));
+
+        UriCanonicalizer custom = canonicalizer.withIgnoredParams("SID").withoutQuerySorting();
+        assertEquals("https://example.com/?b=2&a=1", custom.canonicalize(URI.create("https://example.com/?b=2&sid=abc&a=1")));
+    }
+}